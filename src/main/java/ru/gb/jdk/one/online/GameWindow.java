@@ -34,14 +34,15 @@ public class GameWindow extends JFrame {
     private Map map;
 
     /**
-     * Окно с настройками игры (выбор режима, размеров и т.д.).
+     * Окно с настройками игры (выбор режима, размеров и т.д.); создаётся при первом открытии.
      */
-    private final SettingsWindow settingsWindow;
+    private SettingsWindow settingsWindow;
 
     /**
      * Конструктор главного окна.
      * <p>
      * Инициализирует все компоненты, слушатели и отображает окно.
+     * Окно настроек до показа главного окна не строится: это сокращает время до первой отрисовки.
      * </p>
      */
     public GameWindow() {
@@ -50,8 +51,6 @@ public class GameWindow extends JFrame {
         setupListeners();          // Обработка событий
         layoutComponents();        // Расположение компонентов
         setVisible(true);          // Показ окна
-
-        settingsWindow = new SettingsWindow(this); // Инициализация окна настроек
     }
 
     /**
@@ -81,7 +80,7 @@ public class GameWindow extends JFrame {
         btnStart.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                settingsWindow.setVisible(true); // Показывает окно настроек
+                getSettingsWindow().setVisible(true); // Показывает окно настроек
             }
         });
 
@@ -93,6 +92,18 @@ public class GameWindow extends JFrame {
         });
     }
 
+    /**
+     * Возвращает окно настроек, создавая его при первом обращении.
+     *
+     * @return окно настроек
+     */
+    private SettingsWindow getSettingsWindow() {
+        if (settingsWindow == null) {
+            settingsWindow = new SettingsWindow(this);
+        }
+        return settingsWindow;
+    }
+
     /**
      * Располагает компоненты в окне: кнопки снизу, игровое поле в центре.
      */
@@ -115,4 +126,17 @@ public class GameWindow extends JFrame {
     public void startNewGame(Enums.GameMode mode, int sizeX, int sizeY, int winLen) {
         map.startNewGame(mode, sizeX, sizeY, winLen);
     }
+
+    /**
+     * Запускает новую игру с заданными параметрами и, если нужно, анализом позиции.
+     *
+     * @param mode     режим игры (человек против ИИ или человек против человека)
+     * @param sizeX    ширина игрового поля
+     * @param sizeY    высота игрового поля
+     * @param winLen   длина последовательности для победы
+     * @param analysis показывать ли оценки ходов (только в режиме человек против человека)
+     */
+    public void startNewGame(Enums.GameMode mode, int sizeX, int sizeY, int winLen, boolean analysis) {
+        map.startNewGame(mode, sizeX, sizeY, winLen, analysis);
+    }
 }
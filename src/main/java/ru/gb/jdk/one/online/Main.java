@@ -1,9 +1,14 @@
 package ru.gb.jdk.one.online;
 
+import javax.swing.*;
+
 /**
  * Главный класс приложения "Крестики-нолики".
  * <p>
  * Запускает графическое окно {@link GameWindow}, с которого начинается игра.
+ * Для быстрого запуска (киоск) соберите архив классов профилем {@code mvn -P cds package}
+ * и запускайте {@code java -XX:SharedArchiveFile=target/app.jsa -jar target/<артефакт>.jar}:
+ * классы Swing и приложения берутся из архива, а не загружаются и проверяются заново.
  * </p>
  *
  * @author Вы 🙂
@@ -13,13 +18,12 @@ public class Main {
     /**
      * Точка входа в приложение.
      * <p>
-     * Создает новое игровое окно {@link GameWindow}.
+     * Создает новое игровое окно {@link GameWindow} в потоке обработки событий Swing.
      * </p>
      *
      * @param args аргументы командной строки (не используются)
      */
     public static void main(String[] args) {
-        new GameWindow(); // Запуск главного окна
+        SwingUtilities.invokeLater(GameWindow::new); // Запуск главного окна
     }
 }
-
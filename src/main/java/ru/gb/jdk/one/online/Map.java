@@ -4,8 +4,11 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+import ru.gb.jdk.one.online.ai.*;
 import ru.gb.jdk.one.online.common.*;
 
 /**
@@ -22,8 +25,14 @@ import ru.gb.jdk.one.online.common.*;
  */
 public class Map extends JPanel {
 
-    /** Генератор случайных чисел для хода компьютера */
-    private static final Random RANDOM = new Random();
+    /** Период обновления индикатора "компьютер думает", мс */
+    private static final int THINKING_REPAINT_DELAY = 300;
+
+    /** Частота обновления экрана, если система её не сообщает, Гц */
+    private static final int DEFAULT_REFRESH_RATE = 60;
+
+    /** Наибольшая непрозрачность подсветки клетки (0–255) */
+    private static final int HEATMAP_MAX_ALPHA = 160;
 
     /** Размеры ячеек поля */
     private static int cellWidth, cellHeight;
@@ -49,6 +58,34 @@ public class Map extends JPanel {
     /** Игрок, делающий текущий ход */
     private static Enums.Dot currentPlayer;
 
+    /** Стратегия компьютера текущей игры (со своим генератором случайных чисел) */
+    private static MoveStrategy aiStrategy;
+
+    /** Запись текущей партии */
+    private static GameRecord gameRecord;
+
+    /** Ожидаемый ход компьютера ({@code null}, если компьютер не думает) */
+    private static CompletableFuture<AiScheduler.Result> pendingAiMove;
+
+    /** Включён ли анализ позиции в текущей игре */
+    private static boolean analysisEnabled;
+
+    /** Фоновый анализ позиции; создаётся при первом включении */
+    private static LiveAnalysis analysis;
+
+    /** Отображаемый результат анализа ({@code null} — подсветки нет) */
+    private static LiveAnalysis.Snapshot analysisSnapshot;
+
+    /** Таймер анимации индикатора "компьютер думает"; создаётся при первом ходе компьютера */
+    private Timer thinkingTimer;
+
+    /**
+     * Таймер опроса анализа с частотой экрана: сколько бы результатов ни публиковал поиск,
+     * поле перерисовывается не чаще одного раза за кадр и только при новом результате.
+     * Создаётся при первом включении анализа, чтобы не обращаться к экрану без необходимости.
+     */
+    private Timer analysisTimer;
+
     /**
      * Конструктор. Устанавливает фоновый цвет и слушатель мыши для обработки ходов игроков.
      */
@@ -57,7 +94,7 @@ public class Map extends JPanel {
         addMouseListener(new MouseAdapter() {
             @Override
             public void mouseReleased(MouseEvent e) {
-                if (gameWork && (mode == Enums.GameMode.HVA || mode == Enums.GameMode.HVH)) {
+                if (gameWork && pendingAiMove == null && (mode == Enums.GameMode.HVA || mode == Enums.GameMode.HVH)) {
                     handlePlayerTurn(e);
                 }
             }
@@ -74,15 +111,19 @@ public class Map extends JPanel {
         int y = mouseEvent.getY() / cellHeight;
         if (!isValidCell(x, y) || !isEmptyCell(x, y)) return;
 
+        gameRecord.add(x, y);
         if (mode == Enums.GameMode.HVH) {
             field[y][x] = currentPlayer.getValue();
-            if (checkEndGame(currentPlayer.getValue(), currentPlayer == Enums.Dot.HUMAN ? Enums.GameState.WIN_HUMAN : Enums.GameState.WIN_AI)) return;
+            if (checkEndGame(currentPlayer.getValue(), currentPlayer == Enums.Dot.HUMAN ? Enums.GameState.WIN_HUMAN : Enums.GameState.WIN_AI)) {
+                updateAnalysis();
+                return;
+            }
             currentPlayer = (currentPlayer == Enums.Dot.HUMAN) ? Enums.Dot.AI : Enums.Dot.HUMAN;
+            updateAnalysis();
         } else if (mode == Enums.GameMode.HVA) {
             field[y][x] = Enums.Dot.HUMAN.getValue();
             if (checkEndGame(Enums.Dot.HUMAN.getValue(), Enums.GameState.WIN_HUMAN)) return;
             aiTurn();
-            checkEndGame(Enums.Dot.AI.getValue(), Enums.GameState.WIN_AI);
         }
 
         repaint();
@@ -147,39 +188,7 @@ public class Map extends JPanel {
      * @return {@code true} если игрок выиграл
      */
     private boolean checkWin(int dot) {
-        for (int y = 0; y < fieldSizeY; y++) {
-            for (int x = 0; x < fieldSizeX; x++) {
-                if (checkLine(x, y, 1, 0, winLen, dot) ||
-                        checkLine(x, y, 0, 1, winLen, dot) ||
-                        checkLine(x, y, 1, 1, winLen, dot) ||
-                        checkLine(x, y, 1, -1, winLen, dot)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Проверяет прямую линию ячеек на наличие победной последовательности.
-     *
-     * @param x   начальная координата X
-     * @param y   начальная координата Y
-     * @param vx  направление по X
-     * @param vy  направление по Y
-     * @param len длина проверяемой последовательности
-     * @param dot значение игрока
-     * @return {@code true} если линия выигрышная
-     */
-    private boolean checkLine(int x, int y, int vx, int vy, int len, int dot) {
-        int endX = x + (len - 1) * vx;
-        int endY = y + (len - 1) * vy;
-        if (!isValidCell(endX, endY)) return false;
-
-        for (int i = 0; i < len; i++) {
-            if (field[y + i * vy][x + i * vx] != dot) return false;
-        }
-        return true;
+        return Strategies.analyzer().analyze(field, winLen).isWin(dot);
     }
 
     /**
@@ -191,56 +200,134 @@ public class Map extends JPanel {
      * @param winLen длина для победы
      */
     public void startNewGame(Enums.GameMode mode, int sizeX, int sizeY, int winLen) {
+        startNewGame(mode, sizeX, sizeY, winLen, false);
+    }
+
+    /**
+     * Запускает новую игру с заданными параметрами и, если нужно, анализом позиции.
+     *
+     * @param mode     режим игры
+     * @param sizeX    ширина поля
+     * @param sizeY    высота поля
+     * @param winLen   длина для победы
+     * @param analysis показывать ли оценки ходов (учитывается только в режиме HVH)
+     */
+    public void startNewGame(Enums.GameMode mode, int sizeX, int sizeY, int winLen, boolean analysis) {
         Map.mode = mode;
         Map.fieldSizeX = sizeX;
         Map.fieldSizeY = sizeY;
         Map.winLen = winLen;
+        cancelAiTurn();
+        long seed = Long.getLong(Constants.SEED_PROPERTY, ThreadLocalRandom.current().nextLong());
+        aiStrategy = Strategies.forBoard(seed, sizeX, sizeY);
+        gameRecord = new GameRecord(mode, sizeX, sizeY, winLen, seed);
         initMap();
         gameWork = true;
         gameState = Enums.GameState.GAME;
         currentPlayer = Enums.Dot.HUMAN;
+        analysisEnabled = analysis && mode == Enums.GameMode.HVH;
+        updateAnalysis();
         repaint();
     }
 
     /**
-     * Выполняет ход компьютера.
+     * Перезапускает анализ для текущей позиции или останавливает его, если анализ выключен
+     * или игра окончена.
      */
-    private void aiTurn() {
-        if (tryWinMove(Enums.Dot.AI.getValue(), true)) return;
-        if (tryWinMove(Enums.Dot.HUMAN.getValue(), false)) return;
+    private void updateAnalysis() {
+        analysisSnapshot = null;
+        if (analysisEnabled && gameWork) {
+            if (analysis == null) analysis = new LiveAnalysis();
+            if (analysisTimer == null) analysisTimer = new Timer(1000 / refreshRate(), e -> refreshAnalysis());
+            analysis.analyze(field, winLen, currentPlayer.getValue());
+            analysisTimer.start();
+        } else {
+            if (analysis != null) analysis.stop();
+            if (analysisTimer != null) analysisTimer.stop();
+        }
+    }
 
-        int x, y;
-        do {
-            x = RANDOM.nextInt(fieldSizeX);
-            y = RANDOM.nextInt(fieldSizeY);
-        } while (!isEmptyCell(x, y));
+    /**
+     * Забирает последний результат анализа и перерисовывает поле, если он новый.
+     * Когда анализ закончен, опрос прекращается до следующего хода.
+     */
+    private void refreshAnalysis() {
+        LiveAnalysis.Snapshot snapshot = analysis.latest();
+        if (snapshot == null || snapshot == analysisSnapshot) return;
+        analysisSnapshot = snapshot;
+        if (snapshot.complete()) analysisTimer.stop();
+        repaint();
+    }
 
-        field[y][x] = Enums.Dot.AI.getValue();
+    /**
+     * Возвращает частоту обновления экрана.
+     *
+     * @return частота, Гц
+     */
+    private static int refreshRate() {
+        if (GraphicsEnvironment.isHeadless()) return DEFAULT_REFRESH_RATE;
+        int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDisplayMode().getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : rate;
     }
 
     /**
-     * Ищет выигрышный ход или блокирующий ход противника.
+     * Возвращает запись текущей партии: по ней партию можно воспроизвести ({@link GameReplay}).
      *
-     * @param dot   значение игрока
-     * @param apply применять ли ход
-     * @return {@code true} если найден выигрышный или блокирующий ход
+     * @return запись партии или {@code null}, если игра ещё не начиналась
      */
-    private boolean tryWinMove(int dot, boolean apply) {
-        for (int y = 0; y < fieldSizeY; y++) {
-            for (int x = 0; x < fieldSizeX; x++) {
-                if (isEmptyCell(x, y)) {
-                    field[y][x] = dot;
-                    if (checkWin(dot)) {
-                        if (!apply) {
-                            field[y][x] = Enums.Dot.AI.getValue();
-                        }
-                        return true;
-                    }
-                    field[y][x] = Enums.Dot.EMPTY.getValue();
-                }
-            }
+    public GameRecord getGameRecord() {
+        return gameRecord;
+    }
+
+    /**
+     * Запускает поиск хода компьютера в фоновом потоке.
+     * <p>
+     * Результат применяется к полю в потоке обработки событий Swing.
+     * </p>
+     */
+    private void aiTurn() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Constants.AI_MOVE_DEADLINE_MS);
+        CompletableFuture<AiScheduler.Result> request = SchedulerHolder.AI_SCHEDULER.requestMove(aiStrategy, field,
+                winLen, Enums.Dot.AI.getValue(), deadline);
+        pendingAiMove = request;
+        if (thinkingTimer == null) thinkingTimer = new Timer(THINKING_REPAINT_DELAY, e -> repaint());
+        thinkingTimer.start();
+        request.whenComplete((result, error) ->
+                SwingUtilities.invokeLater(() -> finishAiTurn(request, result, error)));
+    }
+
+    /**
+     * Применяет вычисленный ход компьютера и проверяет окончание игры.
+     *
+     * @param request запрос, для которого получен результат
+     * @param result  выбранный ход
+     * @param error   ошибка поиска или {@code null}
+     */
+    private void finishAiTurn(CompletableFuture<AiScheduler.Result> request, AiScheduler.Result result,
+                              Throwable error) {
+        if (request != pendingAiMove) return; // Результат отменённого поиска
+        pendingAiMove = null;
+        thinkingTimer.stop();
+        if (error != null) {
+            throw new RuntimeException(Constants.AI_ERROR_LABEL, error);
         }
-        return false;
+
+        Move move = result.move();
+        field[move.y()][move.x()] = Enums.Dot.AI.getValue();
+        gameRecord.add(move.x(), move.y(), result.fallback());
+        checkEndGame(Enums.Dot.AI.getValue(), Enums.GameState.WIN_AI);
+        repaint();
+    }
+
+    /**
+     * Отменяет незавершённый поиск хода компьютера.
+     */
+    private void cancelAiTurn() {
+        if (pendingAiMove == null) return;
+        pendingAiMove.cancel(true);
+        pendingAiMove = null;
+        thinkingTimer.stop();
     }
 
     /**
@@ -249,12 +336,7 @@ public class Map extends JPanel {
      * @return {@code true} если нет пустых ячеек
      */
     private boolean isMapFull() {
-        for (int y = 0; y < fieldSizeY; y++) {
-            for (int x = 0; x < fieldSizeX; x++) {
-                if (field[y][x] == Enums.Dot.EMPTY.getValue()) return false;
-            }
-        }
-        return true;
+        return GameRules.isFull(field);
     }
 
     /**
@@ -281,14 +363,64 @@ public class Map extends JPanel {
         cellWidth = width / fieldSizeX;
         cellHeight = height / fieldSizeY;
 
+        if (analysisSnapshot != null && gameState == Enums.GameState.GAME) drawHeatmap(g);
         drawGrid(g);
         drawCells(g);
 
         if (gameState != Enums.GameState.GAME) {
             showMessage(g);
+        } else if (pendingAiMove != null) {
+            showThinking(g);
+        } else if (analysisSnapshot != null) {
+            showAnalysisDepth(g);
         }
     }
 
+    /**
+     * Подсвечивает оценённые клетки по результату анализа: от красного (худший ход для ходящего)
+     * до зелёного (лучший). Доказанные выигрыш и проигрыш — чистые цвета; клетки, оценённые
+     * на меньшей глубине, чем текущая итерация, бледнее.
+     *
+     * @param g графический контекст
+     */
+    private void drawHeatmap(Graphics g) {
+        LiveAnalysis.Snapshot snapshot = analysisSnapshot;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        int maxDepth = 1;
+        for (int y = 0; y < fieldSizeY; y++) {
+            for (int x = 0; x < fieldSizeX; x++) {
+                if (!snapshot.has(x, y)) continue;
+                long score = clampScore(snapshot.score(x, y));
+                min = Math.min(min, score);
+                max = Math.max(max, score);
+                maxDepth = Math.max(maxDepth, snapshot.depth(x, y));
+            }
+        }
+        for (int y = 0; y < fieldSizeY; y++) {
+            for (int x = 0; x < fieldSizeX; x++) {
+                if (!snapshot.has(x, y)) continue;
+                long score = clampScore(snapshot.score(x, y));
+                float t = max == min ? 1f : (float) (score - min) / (max - min);
+                int alpha = HEATMAP_MAX_ALPHA * snapshot.depth(x, y) / maxDepth;
+                g.setColor(new Color(Math.round(255 * (1 - t)), Math.round(200 * t), 0, Math.max(alpha, 24)));
+                g.fillRect(x * cellWidth, y * cellHeight, cellWidth, cellHeight);
+            }
+        }
+    }
+
+    /**
+     * Сводит оценки доказанного выигрыша и проигрыша к значениям чуть за пределами обычных,
+     * чтобы они не сжимали шкалу подсветки остальных клеток.
+     *
+     * @param score оценка анализа
+     * @return оценка для шкалы подсветки
+     */
+    private static long clampScore(long score) {
+        long bound = LineEvaluator.WIN_SCORE;
+        return Math.max(-bound, Math.min(bound, score));
+    }
+
     /**
      * Рисует сетку игрового поля.
      *
@@ -353,6 +485,28 @@ public class Map extends JPanel {
                 cellWidth - Constants.PADDING * 2, cellHeight - Constants.PADDING * 2);
     }
 
+    /**
+     * Отображает индикатор того, что компьютер ищет ход.
+     *
+     * @param g графический контекст
+     */
+    private void showThinking(Graphics g) {
+        int dots = (int) (System.currentTimeMillis() / THINKING_REPAINT_DELAY % 4);
+        g.setColor(Color.GRAY);
+        g.drawString(Constants.AI_THINKING_LABEL + ".".repeat(dots), Constants.PADDING, Constants.PADDING * 2);
+    }
+
+    /**
+     * Отображает глубину текущей итерации анализа.
+     *
+     * @param g графический контекст
+     */
+    private void showAnalysisDepth(Graphics g) {
+        g.setColor(Color.GRAY);
+        g.drawString(Constants.ANALYSIS_DEPTH_LABEL + analysisSnapshot.depth()
+                + (analysisSnapshot.complete() ? "" : "..."), Constants.PADDING, Constants.PADDING * 2);
+    }
+
     /**
      * Отображает сообщение о результате игры.
      *
@@ -383,4 +537,14 @@ public class Map extends JPanel {
         }
         g.drawString(msg, msgX, getHeight() / 2 + 60);
     }
+
+    /**
+     * Планировщик ходов компьютера; создаётся (вместе с потоком поиска) при первом ходе компьютера,
+     * а не при построении окна.
+     */
+    private static final class SchedulerHolder {
+
+        /** Планировщик, вычисляющий ходы компьютера вне потока обработки событий */
+        private static final AiScheduler AI_SCHEDULER = new AiScheduler();
+    }
 }
@@ -32,6 +32,9 @@ public class SettingsWindow extends JFrame {
     /** Радиокнопка: режим человек против человека */
     private JRadioButton pvpRadioButton;
 
+    /** Флажок анализа позиции (доступен в режиме человек против человека) */
+    private JCheckBox analysisCheckBox;
+
     /** Ссылка на главное игровое окно */
     private final GameWindow gameWindow;
 
@@ -103,7 +106,7 @@ public class SettingsWindow extends JFrame {
     }
 
     /**
-     * Создает панель выбора режима игры (HVA или HVH).
+     * Создает панель выбора режима игры (HVA или HVH) и флажок анализа позиции.
      *
      * @return панель с радиокнопками режима
      */
@@ -118,10 +121,16 @@ public class SettingsWindow extends JFrame {
         group.add(pvpRadioButton);
         group.add(pvcRadioButton);
 
+        analysisCheckBox = new JCheckBox(Enums.Texts.ANALYSIS_CHECKBOX.getValue());
+        analysisCheckBox.setToolTipText(Constants.ANALYSIS_TOOLTIP);
+        analysisCheckBox.setEnabled(false);
+        pvpRadioButton.addItemListener(e -> analysisCheckBox.setEnabled(pvpRadioButton.isSelected()));
+
         return createPanelWithComponents(
                 Enums.Texts.GAME_MODE_LABEL.getValue(),
                 pvcRadioButton,
-                pvpRadioButton
+                pvpRadioButton,
+                analysisCheckBox
         );
     }
 
@@ -195,7 +204,8 @@ public class SettingsWindow extends JFrame {
             return;
         }
 
-        gameWindow.startNewGame(mode, size, size, winLength);
+        boolean analysis = mode == Enums.GameMode.HVH && analysisCheckBox.isSelected();
+        gameWindow.startNewGame(mode, size, size, winLength, analysis);
         setVisible(false);
     }
 
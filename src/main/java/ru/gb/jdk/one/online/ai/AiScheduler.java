@@ -0,0 +1,266 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Планировщик ходов компьютера для множества одновременных игр.
+ * <p>
+ * Каждый запрос хода получает срок. Пул рабочих потоков выбирает из очереди запрос
+ * с самым ранним сроком (EDF). Бюджет поиска сокращается с ростом очереди: стратегия
+ * получает срок раньше настоящего, пропорционально числу ожидающих запросов на поток.
+ * Если очередь переполнена, срок уже прошёл или поиск не успел к сроку, ход выбирает
+ * запасная эвристика той же стратегии ({@link MoveStrategy#chooseFallbackMove}) с генератором
+ * случайных чисел игры; результат ({@link Result}) сообщает об этом, чтобы ход был отмечен
+ * в записи партии и партия воспроизводилась. Отмена возвращённого {@link CompletableFuture} снимает запрос с очереди
+ * или прерывает поток, выполняющий поиск.
+ * </p>
+ */
+public class AiScheduler {
+
+    /** Число ожидающих запросов на поток, начиная с которого ходы выбирает эвристика */
+    public static final int DEFAULT_SATURATION = 8;
+
+    /** Пул рабочих потоков с очередью по сроку */
+    private final ThreadPoolExecutor executor;
+
+    /** Число рабочих потоков */
+    private final int workers;
+
+    /** Длина очереди, начиная с которой ходы выбирает эвристика */
+    private final int saturation;
+
+    /** Порядковый номер запроса (упорядочивает запросы с одинаковым сроком) */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** Принятые запросы */
+    private final LongAdder submitted = new LongAdder();
+
+    /** Выполненные запросы */
+    private final LongAdder completed = new LongAdder();
+
+    /** Запросы, выполненные эвристикой из-за нагрузки */
+    private final LongAdder shed = new LongAdder();
+
+    /** Запросы, поиск которых не успел к сроку и ход выбрала эвристика */
+    private final LongAdder degraded = new LongAdder();
+
+    /** Запросы, выполненные позже срока */
+    private final LongAdder deadlineMisses = new LongAdder();
+
+    /**
+     * Создаёт планировщик с одним рабочим потоком (достаточно для одной игры в окне).
+     */
+    public AiScheduler() {
+        this(1, DEFAULT_SATURATION);
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param workers    число рабочих потоков
+     * @param saturation число ожидающих запросов на поток, начиная с которого ходы выбирает эвристика
+     */
+    public AiScheduler(int workers, int saturation) {
+        this.workers = workers;
+        this.saturation = workers * saturation;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "ai-scheduler-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Запрашивает ход компьютера.
+     * <p>
+     * Поле копируется в вызывающем потоке, поэтому после возврата из метода
+     * исходное поле можно изменять.
+     * </p>
+     *
+     * @param strategy      стратегия выбора хода (используется только рабочим потоком)
+     * @param field         текущее игровое поле
+     * @param winLen        длина победной последовательности
+     * @param dot           значение игрока, который ходит
+     * @param deadlineNanos срок по {@link System#nanoTime()}, к которому нужен ход
+     * @return будущий результат с выбранным ходом
+     */
+    public CompletableFuture<Result> requestMove(MoveStrategy strategy, int[][] field, int winLen, int dot,
+                                                 long deadlineNanos) {
+        int[][] snapshot = GameRules.copyOf(field);
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        Request request = new Request(deadlineNanos, sequence.getAndIncrement(), result,
+                () -> chooseMove(strategy, snapshot, winLen, dot, deadlineNanos));
+        result.whenComplete((move, error) -> {
+            if (result.isCancelled()) {
+                request.cancel(true);
+                executor.remove(request);
+            }
+        });
+        submitted.increment();
+        executor.execute(request);
+        return result;
+    }
+
+    /**
+     * Выбирает ход в рабочем потоке с учётом текущей нагрузки.
+     *
+     * @param strategy      стратегия игры
+     * @param field         копия поля
+     * @param winLen        длина победной последовательности
+     * @param dot           значение игрока, который ходит
+     * @param deadlineNanos срок запроса
+     * @return выбранный ход
+     */
+    private Result chooseMove(MoveStrategy strategy, int[][] field, int winLen, int dot, long deadlineNanos) {
+        long now = System.nanoTime();
+        int depth = executor.getQueue().size();
+        long remaining = deadlineNanos - now;
+        Result result;
+        if (depth >= saturation || remaining <= 0) {
+            shed.increment();
+            result = new Result(strategy.chooseFallbackMove(field, winLen, dot), true);
+        } else {
+            // Чем длиннее очередь, тем меньшую часть оставшегося времени получает поиск
+            long budget = remaining / (1 + depth / workers);
+            try {
+                result = new Result(strategy.chooseMove(GameRules.copyOf(field), winLen, dot, now + budget), false);
+            } catch (EndgameSolver.DeadlineExceededException e) {
+                degraded.increment();
+                result = new Result(strategy.chooseFallbackMove(field, winLen, dot), true);
+            }
+        }
+        completed.increment();
+        if (System.nanoTime() - deadlineNanos > 0) deadlineMisses.increment();
+        return result;
+    }
+
+    /**
+     * Возвращает число запросов, ожидающих рабочего потока.
+     *
+     * @return длина очереди
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Возвращает число принятых запросов.
+     *
+     * @return число запросов
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * Возвращает число выполненных запросов.
+     *
+     * @return число запросов
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Возвращает число запросов, выполненных эвристикой из-за нагрузки.
+     *
+     * @return число запросов
+     */
+    public long getShed() {
+        return shed.sum();
+    }
+
+    /**
+     * Возвращает число запросов, поиск которых не успел к сроку и ход выбрала эвристика.
+     *
+     * @return число запросов
+     */
+    public long getDegraded() {
+        return degraded.sum();
+    }
+
+    /**
+     * Возвращает число запросов, выполненных позже срока.
+     *
+     * @return число запросов
+     */
+    public long getDeadlineMisses() {
+        return deadlineMisses.sum();
+    }
+
+    /**
+     * Останавливает рабочие потоки.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Результат запроса хода.
+     *
+     * @param move     выбранный ход
+     * @param fallback {@code true} если ход выбран запасной эвристикой ({@link MoveStrategy#chooseFallbackMove})
+     */
+    public record Result(Move move, boolean fallback) {
+    }
+
+    /**
+     * Запрос хода в очереди: упорядочивается по сроку, затем по порядку поступления.
+     */
+    private static final class Request extends FutureTask<Result> implements Comparable<Request> {
+
+        /** Срок запроса */
+        private final long deadlineNanos;
+
+        /** Порядковый номер запроса */
+        private final long sequence;
+
+        /** Результат, видимый вызывающему коду */
+        private final CompletableFuture<Result> result;
+
+        /**
+         * Конструктор.
+         *
+         * @param deadlineNanos срок запроса
+         * @param sequence      порядковый номер запроса
+         * @param result        результат, видимый вызывающему коду
+         * @param task          вычисление хода
+         */
+        private Request(long deadlineNanos, long sequence, CompletableFuture<Result> result,
+                        Callable<Result> task) {
+            super(task);
+            this.deadlineNanos = deadlineNanos;
+            this.sequence = sequence;
+            this.result = result;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+            try {
+                result.complete(get());
+            } catch (ExecutionException e) {
+                result.completeExceptionally(e.getCause());
+            } catch (InterruptedException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            int byDeadline = Long.compare(deadlineNanos - other.deadlineNanos, 0);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Геометрия линий поля: все победные линии и индекс «линии через клетку».
+ * <p>
+ * Зависит только от ширины, высоты поля и длины победной последовательности, поэтому
+ * строится один раз на конфигурацию ({@link #of}) и разделяется всеми играми и потоками.
+ * Объект неизменяем. Линии хранятся плоско: клетки линии {@code l} —
+ * {@code lineCells[l * winLen .. (l + 1) * winLen)}. Индекс линий через клетку — в формате CSR:
+ * линии клетки {@code c} — {@code cellLines[cellLineStart[c] .. cellLineStart[c + 1])},
+ * а {@code cellLinePos} хранит позицию клетки внутри соответствующей линии.
+ * Клетки нумеруются как {@code y * sizeX + x}.
+ * </p>
+ */
+public final class BoardGeometry {
+
+    /** Направления линий: по строке, по столбцу, по диагонали и по обратной диагонали */
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    /** Построенные геометрии по упакованным параметрам поля */
+    private static final Map<Long, BoardGeometry> CACHE = new ConcurrentHashMap<>();
+
+    /** Ширина поля */
+    private final int sizeX;
+
+    /** Высота поля */
+    private final int sizeY;
+
+    /** Длина победной последовательности */
+    private final int winLen;
+
+    /** Число линий */
+    private final int lineCount;
+
+    /** Клетки всех линий подряд, по {@code winLen} на линию */
+    private final int[] lineCells;
+
+    /** Начало списка линий каждой клетки (размер — число клеток + 1) */
+    private final int[] cellLineStart;
+
+    /** Номера линий, проходящих через клетку */
+    private final int[] cellLines;
+
+    /** Позиция клетки внутри соответствующей линии из {@link #cellLines} */
+    private final int[] cellLinePos;
+
+    /** Координата X каждой клетки */
+    private final int[] cellX;
+
+    /** Координата Y каждой клетки */
+    private final int[] cellY;
+
+    /**
+     * Строит геометрию.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     */
+    private BoardGeometry(int sizeX, int sizeY, int winLen) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.winLen = winLen;
+        int cells = sizeX * sizeY;
+
+        int count = 0;
+        for (int y = 0; y < sizeY; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                for (int[] d : DIRECTIONS) {
+                    if (fits(x, y, d)) count++;
+                }
+            }
+        }
+        lineCount = count;
+        lineCells = new int[count * winLen];
+        int line = 0;
+        for (int y = 0; y < sizeY; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                for (int[] d : DIRECTIONS) {
+                    if (!fits(x, y, d)) continue;
+                    for (int i = 0; i < winLen; i++) {
+                        lineCells[line * winLen + i] = (y + i * d[1]) * sizeX + x + i * d[0];
+                    }
+                    line++;
+                }
+            }
+        }
+
+        cellLineStart = new int[cells + 1];
+        for (int cell : lineCells) {
+            cellLineStart[cell + 1]++;
+        }
+        for (int i = 0; i < cells; i++) {
+            cellLineStart[i + 1] += cellLineStart[i];
+        }
+        cellLines = new int[lineCells.length];
+        cellLinePos = new int[lineCells.length];
+        int[] fill = cellLineStart.clone();
+        for (int l = 0; l < lineCount; l++) {
+            for (int i = 0; i < winLen; i++) {
+                int cell = lineCells[l * winLen + i];
+                cellLines[fill[cell]] = l;
+                cellLinePos[fill[cell]] = i;
+                fill[cell]++;
+            }
+        }
+
+        cellX = new int[cells];
+        cellY = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            cellX[cell] = cell % sizeX;
+            cellY[cell] = cell / sizeX;
+        }
+    }
+
+    /**
+     * Возвращает общую геометрию для параметров поля.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     * @return геометрия (один экземпляр на конфигурацию)
+     */
+    public static BoardGeometry of(int sizeX, int sizeY, int winLen) {
+        long key = (long) sizeX << 40 | (long) sizeY << 20 | winLen;
+        BoardGeometry geometry = CACHE.get(key);
+        if (geometry == null) {
+            geometry = CACHE.computeIfAbsent(key, k -> new BoardGeometry(sizeX, sizeY, winLen));
+        }
+        return geometry;
+    }
+
+    /**
+     * Проверяет, помещается ли линия из клетки в направлении целиком на поле.
+     *
+     * @param x начальная координата X
+     * @param y начальная координата Y
+     * @param d направление
+     * @return {@code true} если линия помещается
+     */
+    private boolean fits(int x, int y, int[] d) {
+        int endX = x + (winLen - 1) * d[0];
+        int endY = y + (winLen - 1) * d[1];
+        return endX >= 0 && endX < sizeX && endY >= 0 && endY < sizeY;
+    }
+
+    /**
+     * Проверяет, выиграл ли игрок, просматривая все линии.
+     *
+     * @param field игровое поле
+     * @param dot   значение игрока
+     * @return {@code true} если игрок выиграл
+     */
+    public boolean hasWin(int[][] field, int dot) {
+        for (int l = 0; l < lineCount; l++) {
+            if (isLineOf(field, l, dot)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Проверяет, замкнул ли ход в клетку победную линию: просматриваются только линии через неё.
+     *
+     * @param field игровое поле (ход уже сделан)
+     * @param x     координата X хода
+     * @param y     координата Y хода
+     * @param dot   значение игрока
+     * @return {@code true} если через клетку проходит линия игрока
+     */
+    public boolean winsAt(int[][] field, int x, int y, int dot) {
+        int cell = y * sizeX + x;
+        for (int i = cellLineStart[cell]; i < cellLineStart[cell + 1]; i++) {
+            if (isLineOf(field, cellLines[i], dot)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Проверяет, занята ли линия целиком одним игроком.
+     *
+     * @param field игровое поле
+     * @param line  номер линии
+     * @param dot   значение игрока
+     * @return {@code true} если все клетки линии принадлежат игроку
+     */
+    private boolean isLineOf(int[][] field, int line, int dot) {
+        int base = line * winLen;
+        for (int i = 0; i < winLen; i++) {
+            int cell = lineCells[base + i];
+            if (field[cellY[cell]][cellX[cell]] != dot) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Отбирает ходы-кандидаты: пустые клетки, лежащие на одной линии хотя бы с одной фишкой.
+     * На пустом поле кандидат один — центральная клетка.
+     *
+     * @param cells поле построчно ({@code cells[y * sizeX + x]})
+     * @param out   массив для результата длиной не меньше числа клеток
+     * @return число кандидатов, записанных в {@code out}
+     */
+    public int candidates(int[] cells, int[] out) {
+        int count = 0;
+        boolean anyStone = false;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != Enums.Dot.EMPTY.getValue()) {
+                anyStone = true;
+                continue;
+            }
+            if (touchesStone(cells, cell)) out[count++] = cell;
+        }
+        if (!anyStone) {
+            out[0] = (sizeY / 2) * sizeX + sizeX / 2;
+            return 1;
+        }
+        if (count == 0) {
+            // Все линии с фишками заполнены — годится любая пустая клетка
+            for (int cell = 0; cell < cells.length; cell++) {
+                if (cells[cell] == Enums.Dot.EMPTY.getValue()) out[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Проверяет, есть ли фишка на какой-либо линии через клетку.
+     *
+     * @param cells поле построчно
+     * @param cell  индекс клетки
+     * @return {@code true} если клетка разделяет линию с фишкой
+     */
+    private boolean touchesStone(int[] cells, int cell) {
+        for (int i = cellLineStart[cell]; i < cellLineStart[cell + 1]; i++) {
+            int base = cellLines[i] * winLen;
+            for (int k = 0; k < winLen; k++) {
+                if (cells[lineCells[base + k]] != Enums.Dot.EMPTY.getValue()) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return ширина поля
+     */
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return высота поля
+     */
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    /**
+     * Возвращает длину победной последовательности.
+     *
+     * @return длина линии
+     */
+    public int getWinLen() {
+        return winLen;
+    }
+
+    /**
+     * Возвращает число линий.
+     *
+     * @return число линий
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Возвращает начало списка линий клетки в {@link #cellLines()}.
+     *
+     * @param cell индекс клетки
+     * @return индекс первого элемента
+     */
+    public int cellLineStart(int cell) {
+        return cellLineStart[cell];
+    }
+
+    /**
+     * Возвращает конец (не включительно) списка линий клетки в {@link #cellLines()}.
+     *
+     * @param cell индекс клетки
+     * @return индекс за последним элементом
+     */
+    public int cellLineEnd(int cell) {
+        return cellLineStart[cell + 1];
+    }
+
+    /**
+     * Возвращает номера линий через клетки (CSR). Массив общий — изменять нельзя.
+     *
+     * @return массив номеров линий
+     */
+    public int[] cellLines() {
+        return cellLines;
+    }
+
+    /**
+     * Возвращает позиции клеток внутри линий (параллельно {@link #cellLines()}). Массив общий — изменять нельзя.
+     *
+     * @return массив позиций
+     */
+    public int[] cellLinePos() {
+        return cellLinePos;
+    }
+
+    /**
+     * Возвращает клетки всех линий подряд. Массив общий — изменять нельзя.
+     *
+     * @return массив клеток
+     */
+    public int[] lineCells() {
+        return lineCells;
+    }
+
+    /**
+     * Возвращает примерный объём памяти, занимаемый геометрией.
+     *
+     * @return байт
+     */
+    public long byteSize() {
+        return (long) Integer.BYTES * (lineCells.length + cellLineStart.length + cellLines.length
+                + cellLinePos.length + cellX.length + cellY.length);
+    }
+}
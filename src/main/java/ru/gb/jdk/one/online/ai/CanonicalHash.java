@@ -0,0 +1,98 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.Arrays;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Канонический хеш позиции: одинаков для позиций, совпадающих с точностью до симметрии поля.
+ * <p>
+ * Для каждой симметрии поля поддерживается свой хеш Зобриста ({@link ZobristHash}) отражённой
+ * позиции, канонический хеш — наименьший из них. У квадратного поля восемь симметрий
+ * (повороты и отражения), у прямоугольного — четыре (без транспонирования).
+ * Экземпляр обновляется по ходам партии; для готового поля есть {@link #of}.
+ * </p>
+ */
+public class CanonicalHash {
+
+    /** Ширина поля */
+    private final int sizeX;
+
+    /** Высота поля */
+    private final int sizeY;
+
+    /** Хеши позиции в каждой симметрии */
+    private final long[] hashes;
+
+    /**
+     * Создаёт хеш пустого поля.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     */
+    public CanonicalHash(int sizeX, int sizeY, int winLen) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.hashes = new long[sizeX == sizeY ? 8 : 4];
+        Arrays.fill(hashes, ZobristHash.salt(sizeX, sizeY, winLen));
+    }
+
+    /**
+     * Вычисляет канонический хеш готового поля.
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @return канонический хеш
+     */
+    public static long of(int[][] field, int winLen) {
+        CanonicalHash hash = new CanonicalHash(field[0].length, field.length, winLen);
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < field[y].length; x++) {
+                if (field[y][x] != Enums.Dot.EMPTY.getValue()) hash.toggle(x, y, field[y][x]);
+            }
+        }
+        return hash.value();
+    }
+
+    /**
+     * Ставит или снимает фишку.
+     *
+     * @param x   координата X
+     * @param y   координата Y
+     * @param dot значение игрока
+     */
+    public void toggle(int x, int y, int dot) {
+        for (int t = 0; t < hashes.length; t++) {
+            hashes[t] ^= ZobristHash.key(transform(t, x, y), dot);
+        }
+    }
+
+    /**
+     * Возвращает канонический хеш текущей позиции.
+     *
+     * @return наименьший хеш по всем симметриям
+     */
+    public long value() {
+        long min = hashes[0];
+        for (int t = 1; t < hashes.length; t++) {
+            min = Math.min(min, hashes[t]);
+        }
+        return min;
+    }
+
+    /**
+     * Отображает клетку симметрией поля.
+     *
+     * @param t номер симметрии: 0–3 — тождество и отражения, 4–7 — то же после транспонирования
+     * @param x координата X
+     * @param y координата Y
+     * @return индекс клетки в отражённой позиции
+     */
+    private int transform(int t, int x, int y) {
+        if ((t & 1) != 0) x = sizeX - 1 - x;
+        if ((t & 2) != 0) y = sizeY - 1 - y;
+        // Транспонирование допустимо только для квадратного поля
+        return (t & 4) != 0 ? x * sizeX + y : y * sizeX + x;
+    }
+}
@@ -0,0 +1,354 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.concurrent.CancellationException;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Точный решатель эндшпиля: полный перебор альфа-бета с оценками
+ * победа/ничья/поражение и собственной небольшой таблицей транспозиций.
+ * <p>
+ * Применяется, когда пустых ячеек мало и дерево игры можно перебрать целиком.
+ * Возвращает ход, доказуемо лучший при идеальной игре обеих сторон. Таблица транспозиций
+ * хранит результат с типом границы (точное значение, нижняя или верхняя граница)
+ * и сохраняется между вызовами, поэтому последующие ходы той же партии решаются быстрее.
+ * Экземпляр не потокобезопасен.
+ * </p>
+ */
+public class EndgameSolver {
+
+    /** Значение позиции: ходящий выигрывает */
+    public static final int WIN = 1;
+
+    /** Значение позиции: ничья */
+    public static final int DRAW = 0;
+
+    /** Значение позиции: ходящий проигрывает */
+    public static final int LOSS = -1;
+
+    /** Размер таблицы транспозиций по умолчанию (записей) */
+    private static final int DEFAULT_TABLE_SIZE = 1 << 16;
+
+    /** Тип записи: точное значение */
+    private static final int EXACT = 0;
+
+    /** Тип записи: нижняя граница */
+    private static final int LOWER = 1;
+
+    /** Тип записи: верхняя граница */
+    private static final int UPPER = 2;
+
+    /** Ключ, добавляемый к хешу, когда ходит компьютер */
+    private static final long SIDE_KEY = 0x2545F4914F6CDD1DL;
+
+    /** Хеши позиций таблицы транспозиций */
+    private final long[] tableKeys;
+
+    /** Упакованные данные записей: значение, тип границы и лучший ход */
+    private final int[] tableData;
+
+    /** Признак заполненности записей */
+    private final boolean[] tableUsed;
+
+    /** Поле текущего решения, построчно */
+    private int[] cells;
+
+    /** Ширина поля текущего решения */
+    private int sizeX;
+
+    /** Оценщик текущего решения (используется для проверки победы и упорядочивания ходов) */
+    private LineEvaluator evaluator;
+
+    /** Число посещённых узлов */
+    private long nodes;
+
+    /** Ограничен ли текущий перебор сроком */
+    private boolean bounded;
+
+    /** Срок окончания текущего перебора по {@link System#nanoTime()} */
+    private long deadline;
+
+    /**
+     * Создаёт решатель с таблицей транспозиций размера по умолчанию.
+     */
+    public EndgameSolver() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Создаёт решатель.
+     *
+     * @param tableSize число записей таблицы транспозиций (округляется вниз до степени двойки)
+     */
+    public EndgameSolver(int tableSize) {
+        int size = Integer.highestOneBit(Math.max(1, tableSize));
+        tableKeys = new long[size];
+        tableData = new int[size];
+        tableUsed = new boolean[size];
+    }
+
+    /**
+     * Результат решения.
+     *
+     * @param move  лучший ход
+     * @param value значение позиции для ходящего: {@link #WIN}, {@link #DRAW} или {@link #LOSS}
+     * @param nodes число посещённых узлов
+     */
+    public record Result(Move move, int value, long nodes) {
+    }
+
+    /**
+     * Исключение, которым перебор прерывается по истечении срока.
+     * <p>
+     * Стек не заполняется: исключение ожидаемое и выбрасывается из глубокой рекурсии.
+     * </p>
+     */
+    public static class DeadlineExceededException extends RuntimeException {
+
+        /** Версия сериализации */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Конструктор.
+         */
+        public DeadlineExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Решает позицию точно.
+     *
+     * @param field  игровое поле (не изменяется)
+     * @param winLen длина победной последовательности
+     * @param dot    значение ходящего игрока
+     * @return лучший ход и значение позиции
+     * @throws CancellationException если поток был прерван во время перебора
+     */
+    public Result solve(int[][] field, int winLen, int dot) {
+        bounded = false;
+        return solveBounded(field, winLen, dot);
+    }
+
+    /**
+     * Решает позицию точно, если успевает к сроку.
+     * <p>
+     * Записи таблицы транспозиций, сделанные до прерывания, остаются верными
+     * и ускоряют следующую попытку.
+     * </p>
+     *
+     * @param field         игровое поле (не изменяется)
+     * @param winLen        длина победной последовательности
+     * @param dot           значение ходящего игрока
+     * @param deadlineNanos срок по {@link System#nanoTime()}
+     * @return лучший ход и значение позиции
+     * @throws DeadlineExceededException если перебор не закончился к сроку
+     * @throws CancellationException     если поток был прерван во время перебора
+     */
+    public Result solve(int[][] field, int winLen, int dot, long deadlineNanos) {
+        bounded = true;
+        deadline = deadlineNanos;
+        return solveBounded(field, winLen, dot);
+    }
+
+    /**
+     * Решает позицию с учётом уже заданного ограничения по сроку.
+     *
+     * @param field  игровое поле (не изменяется)
+     * @param winLen длина победной последовательности
+     * @param dot    значение ходящего игрока
+     * @return лучший ход и значение позиции
+     */
+    private Result solveBounded(int[][] field, int winLen, int dot) {
+        int sizeY = field.length;
+        sizeX = field[0].length;
+        cells = new int[sizeX * sizeY];
+        if (evaluator == null || !evaluator.fits(sizeX, sizeY, winLen)) {
+            evaluator = new LineEvaluator(sizeX, sizeY, winLen);
+        }
+        evaluator.load(field);
+        int empty = 0;
+        for (int y = 0; y < sizeY; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                cells[y * sizeX + x] = field[y][x];
+                if (field[y][x] == Enums.Dot.EMPTY.getValue()) empty++;
+            }
+        }
+        nodes = 0;
+        long hash = ZobristHash.of(field, winLen);
+
+        int[] moves = orderedMoves(dot, empty);
+        int bestValue = LOSS - 1;
+        int bestCell = moves[0];
+        int alpha = LOSS - 1;
+        for (int cell : moves) {
+            int value = tryMove(cell, dot, hash, empty, alpha, WIN + 1);
+            if (value > bestValue) {
+                bestValue = value;
+                bestCell = cell;
+                alpha = Math.max(alpha, value);
+                if (value == WIN) break;
+            }
+        }
+        return new Result(new Move(bestCell % sizeX, bestCell / sizeX), bestValue, nodes);
+    }
+
+    /**
+     * Делает ход, оценивает получившуюся позицию и отменяет ход.
+     *
+     * @param cell  индекс ячейки
+     * @param dot   значение ходящего игрока
+     * @param hash  хеш позиции до хода
+     * @param empty число пустых ячеек до хода
+     * @param alpha нижняя граница окна
+     * @param beta  верхняя граница окна
+     * @return значение хода для ходящего
+     */
+    private int tryMove(int cell, int dot, long hash, int empty, int alpha, int beta) {
+        int x = cell % sizeX;
+        int y = cell / sizeX;
+        cells[cell] = dot;
+        evaluator.place(x, y, dot);
+        int value;
+        if (evaluator.hasWin(dot)) {
+            value = WIN;
+        } else if (empty == 1) {
+            value = DRAW;
+        } else {
+            value = -search(GameRules.opponent(dot), ZobristHash.toggle(hash, sizeX, x, y, dot),
+                    empty - 1, -beta, -alpha);
+        }
+        evaluator.remove(x, y, dot);
+        cells[cell] = Enums.Dot.EMPTY.getValue();
+        return value;
+    }
+
+    /**
+     * Перебор альфа-бета в форме negamax.
+     *
+     * @param dot   значение ходящего игрока
+     * @param hash  хеш позиции (без учёта стороны)
+     * @param empty число пустых ячеек
+     * @param alpha нижняя граница окна
+     * @param beta  верхняя граница окна
+     * @return значение позиции для ходящего
+     */
+    private int search(int dot, long hash, int empty, int alpha, int beta) {
+        if ((++nodes & 0x3FF) == 0) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+            if (bounded && System.nanoTime() - deadline > 0) throw new DeadlineExceededException();
+        }
+        int alphaOrig = alpha;
+        long key = dot == Enums.Dot.AI.getValue() ? hash ^ SIDE_KEY : hash;
+        int slot = (int) (key ^ (key >>> 32)) & (tableKeys.length - 1);
+        int hintCell = -1;
+        if (tableUsed[slot] && tableKeys[slot] == key) {
+            int data = tableData[slot];
+            int value = unpackValue(data);
+            int flag = unpackFlag(data);
+            hintCell = unpackCell(data);
+            if (cells[hintCell] != Enums.Dot.EMPTY.getValue()) hintCell = -1; // Коллизия хешей
+            if (flag == EXACT) return value;
+            if (flag == LOWER) alpha = Math.max(alpha, value);
+            else beta = Math.min(beta, value);
+            if (alpha >= beta) return value;
+        }
+
+        int bestValue = LOSS - 1;
+        int bestCell = -1;
+        if (hintCell >= 0) {
+            bestValue = tryMove(hintCell, dot, hash, empty, alpha, beta);
+            bestCell = hintCell;
+            alpha = Math.max(alpha, bestValue);
+        }
+        if (alpha < beta) {
+            for (int cell : orderedMoves(dot, empty)) {
+                if (cell == hintCell) continue;
+                int value = tryMove(cell, dot, hash, empty, alpha, beta);
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestCell = cell;
+                    alpha = Math.max(alpha, value);
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+
+        int flag = bestValue <= alphaOrig ? UPPER : bestValue >= beta ? LOWER : EXACT;
+        tableKeys[slot] = key;
+        tableData[slot] = pack(bestValue, flag, bestCell);
+        tableUsed[slot] = true;
+        return bestValue;
+    }
+
+    /**
+     * Перечисляет пустые ячейки, упорядоченные по убыванию статической оценки после хода.
+     *
+     * @param dot   значение ходящего игрока
+     * @param empty число пустых ячеек
+     * @return индексы пустых ячеек
+     */
+    private int[] orderedMoves(int dot, int empty) {
+        int[] moves = new int[empty];
+        long[] scores = new long[empty];
+        int n = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != Enums.Dot.EMPTY.getValue()) continue;
+            evaluator.place(cell % sizeX, cell / sizeX, dot);
+            long score = evaluator.evaluate(dot);
+            evaluator.remove(cell % sizeX, cell / sizeX, dot);
+            // Сортировка вставкой: ходов немного
+            int i = n++;
+            while (i > 0 && scores[i - 1] < score) {
+                scores[i] = scores[i - 1];
+                moves[i] = moves[i - 1];
+                i--;
+            }
+            scores[i] = score;
+            moves[i] = cell;
+        }
+        return moves;
+    }
+
+    /**
+     * Упаковывает запись таблицы транспозиций.
+     *
+     * @param value значение
+     * @param flag  тип границы
+     * @param cell  лучший ход
+     * @return упакованные данные
+     */
+    private static int pack(int value, int flag, int cell) {
+        return (cell << 4) | (flag << 2) | (value + 1);
+    }
+
+    /**
+     * Извлекает значение из записи таблицы транспозиций.
+     *
+     * @param data упакованные данные
+     * @return значение
+     */
+    private static int unpackValue(int data) {
+        return (data & 0b11) - 1;
+    }
+
+    /**
+     * Извлекает тип границы из записи таблицы транспозиций.
+     *
+     * @param data упакованные данные
+     * @return тип границы
+     */
+    private static int unpackFlag(int data) {
+        return (data >> 2) & 0b11;
+    }
+
+    /**
+     * Извлекает лучший ход из записи таблицы транспозиций.
+     *
+     * @param data упакованные данные
+     * @return индекс ячейки
+     */
+    private static int unpackCell(int data) {
+        return data >> 4;
+    }
+}
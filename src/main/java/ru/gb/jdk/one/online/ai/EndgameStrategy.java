@@ -0,0 +1,81 @@
+package ru.gb.jdk.one.online.ai;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Стратегия с точным эндшпилем: пока пустых ячеек много, ходит другая стратегия,
+ * когда их становится не больше порога — ход выбирает {@link EndgameSolver}.
+ * <p>
+ * Если задан срок и решатель не успевает к нему, бросается
+ * {@link EndgameSolver.DeadlineExceededException}; запасной ход ({@link #chooseFallbackMove})
+ * выбирает запасная стратегия.
+ * </p>
+ */
+public class EndgameStrategy implements MoveStrategy {
+
+    /** Стратегия для начала и середины игры */
+    private final MoveStrategy fallback;
+
+    /** Порог числа пустых ячеек для включения решателя */
+    private final int threshold;
+
+    /** Решатель эндшпиля (таблица транспозиций сохраняется между ходами) */
+    private final EndgameSolver solver = new EndgameSolver();
+
+    /**
+     * Конструктор с порогом по умолчанию {@link Constants#ENDGAME_EMPTY_CELLS}.
+     *
+     * @param fallback стратегия для начала и середины игры
+     */
+    public EndgameStrategy(MoveStrategy fallback) {
+        this(fallback, Constants.ENDGAME_EMPTY_CELLS);
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param fallback  стратегия для начала и середины игры
+     * @param threshold порог числа пустых ячеек для включения решателя
+     */
+    public EndgameStrategy(MoveStrategy fallback, int threshold) {
+        this.fallback = fallback;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Move chooseMove(int[][] field, int winLen, int dot) {
+        if (countEmpty(field) > threshold || winLen > LineEvaluator.MAX_WIN_LEN) {
+            return fallback.chooseMove(field, winLen, dot);
+        }
+        return solver.solve(field, winLen, dot).move();
+    }
+
+    @Override
+    public Move chooseMove(int[][] field, int winLen, int dot, long deadlineNanos) {
+        if (countEmpty(field) > threshold || winLen > LineEvaluator.MAX_WIN_LEN) {
+            return fallback.chooseMove(field, winLen, dot, deadlineNanos);
+        }
+        return solver.solve(field, winLen, dot, deadlineNanos).move();
+    }
+
+    @Override
+    public Move chooseFallbackMove(int[][] field, int winLen, int dot) {
+        return fallback.chooseFallbackMove(field, winLen, dot);
+    }
+
+    /**
+     * Считает пустые ячейки поля.
+     *
+     * @param field игровое поле
+     * @return число пустых ячеек
+     */
+    private static int countEmpty(int[][] field) {
+        int count = 0;
+        for (int[] row : field) {
+            for (int cell : row) {
+                if (cell == Enums.Dot.EMPTY.getValue()) count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.gb.jdk.one.online.ai;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Результат анализа позиции.
+ *
+ * @param score оценка позиции с точки зрения компьютера
+ * @param state состояние игры в этой позиции (продолжается, победа или ничья)
+ */
+public record Evaluation(long score, Enums.GameState state) {
+
+    /**
+     * Возвращает оценку с точки зрения игрока.
+     *
+     * @param dot значение игрока
+     * @return оценка: чем больше, тем лучше позиция для игрока
+     */
+    public long scoreFor(int dot) {
+        return dot == Enums.Dot.AI.getValue() ? score : -score;
+    }
+
+    /**
+     * Проверяет, выиграл ли игрок в этой позиции.
+     *
+     * @param dot значение игрока
+     * @return {@code true} если игрок выиграл
+     */
+    public boolean isWin(int dot) {
+        return state == (dot == Enums.Dot.AI.getValue() ? Enums.GameState.WIN_AI : Enums.GameState.WIN_HUMAN);
+    }
+}
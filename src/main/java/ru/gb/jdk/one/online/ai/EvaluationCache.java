@@ -0,0 +1,248 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Общий потокобезопасный кеш результатов анализа позиций: хеш позиции → {@link Evaluation}.
+ * <p>
+ * Кеш ограничен по числу записей и устроен как множественно-ассоциативный: хеш выбирает
+ * корзину из {@value #WAYS} записей, внутри корзины вытеснение идёт по алгоритму CLOCK
+ * (запись, к которой обращались, получает второй шанс). Корзины защищены
+ * {@value #STRIPES} блокировками-полосами, поэтому потоки, работающие с разными
+ * корзинами, не мешают друг другу. Данные хранятся в примитивных массивах без
+ * объектов на запись.
+ * </p>
+ */
+public class EvaluationCache {
+
+    /** Примерный размер одной записи в байтах (ключ, оценка, состояние, бит обращения) */
+    public static final int ENTRY_BYTES = Long.BYTES + Long.BYTES + 2;
+
+    /** Системное свойство с ёмкостью общего кеша (в записях) */
+    public static final String CAPACITY_PROPERTY = "tictactoe.cache.entries";
+
+    /** Ёмкость общего кеша по умолчанию (в записях) */
+    private static final int DEFAULT_CAPACITY = 1 << 18;
+
+    /** Число записей в корзине */
+    private static final int WAYS = 8;
+
+    /** Число блокировок-полос */
+    private static final int STRIPES = 64;
+
+    /** Состояния игры по коду, хранимому в {@link #states} (0 — пустая запись) */
+    private static final Enums.GameState[] STATES = Enums.GameState.values();
+
+    /** Хеши позиций */
+    private final long[] keys;
+
+    /** Оценки позиций */
+    private final long[] scores;
+
+    /** Состояние игры: {@code ordinal + 1}, 0 — запись свободна */
+    private final byte[] states;
+
+    /** Биты обращения для CLOCK */
+    private final boolean[] referenced;
+
+    /** Положение стрелки CLOCK в каждой корзине */
+    private final byte[] hands;
+
+    /** Маска номера корзины */
+    private final int bucketMask;
+
+    /** Блокировки-полосы */
+    private final Object[] locks = new Object[STRIPES];
+
+    /** Число попаданий */
+    private final LongAdder hits = new LongAdder();
+
+    /** Число промахов */
+    private final LongAdder misses = new LongAdder();
+
+    /** Число вытеснений */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Создаёт кеш заданной ёмкости (округляется вниз до степени двойки, но не меньше одной корзины).
+     *
+     * @param capacity максимальное число записей
+     */
+    public EvaluationCache(int capacity) {
+        int buckets = Integer.highestOneBit(Math.max(1, capacity / WAYS));
+        bucketMask = buckets - 1;
+        int size = buckets * WAYS;
+        keys = new long[size];
+        scores = new long[size];
+        states = new byte[size];
+        referenced = new boolean[size];
+        hands = new byte[buckets];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Создаёт кеш, занимающий не более заданного объёма памяти.
+     *
+     * @param bytes допустимый объём в байтах
+     * @return кеш
+     */
+    public static EvaluationCache ofBytes(long bytes) {
+        return new EvaluationCache((int) Math.min(Integer.MAX_VALUE, bytes / ENTRY_BYTES));
+    }
+
+    /**
+     * Возвращает кеш, общий для всех игр процесса.
+     * Ёмкость задаётся системным свойством {@value #CAPACITY_PROPERTY}.
+     *
+     * @return общий кеш
+     */
+    public static EvaluationCache shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Ищет результат анализа позиции.
+     *
+     * @param hash хеш позиции
+     * @return сохранённый результат или {@code null}
+     */
+    public Evaluation get(long hash) {
+        int bucket = bucket(hash);
+        int base = bucket * WAYS;
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (states[i] != 0 && keys[i] == hash) {
+                    referenced[i] = true;
+                    hits.increment();
+                    return new Evaluation(scores[i], STATES[states[i] - 1]);
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Сохраняет результат анализа позиции, при необходимости вытесняя запись из корзины.
+     *
+     * @param hash       хеш позиции
+     * @param evaluation результат анализа
+     */
+    public void put(long hash, Evaluation evaluation) {
+        int bucket = bucket(hash);
+        int base = bucket * WAYS;
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            int slot = -1;
+            for (int i = base; i < base + WAYS; i++) {
+                if (states[i] != 0 && keys[i] == hash) {
+                    slot = i;
+                    break;
+                }
+                if (slot < 0 && states[i] == 0) slot = i;
+            }
+            if (slot < 0) {
+                slot = evict(bucket);
+            }
+            keys[slot] = hash;
+            scores[slot] = evaluation.score();
+            states[slot] = (byte) (evaluation.state().ordinal() + 1);
+            referenced[slot] = false;
+        }
+    }
+
+    /**
+     * Выбирает жертву в заполненной корзине по алгоритму CLOCK. Вызывается под блокировкой.
+     *
+     * @param bucket номер корзины
+     * @return индекс освобождаемой записи
+     */
+    private int evict(int bucket) {
+        int base = bucket * WAYS;
+        int hand = hands[bucket];
+        while (referenced[base + hand]) {
+            referenced[base + hand] = false;
+            hand = (hand + 1) % WAYS;
+        }
+        hands[bucket] = (byte) ((hand + 1) % WAYS);
+        evictions.increment();
+        return base + hand;
+    }
+
+    /**
+     * Вычисляет номер корзины по хешу.
+     *
+     * @param hash хеш позиции
+     * @return номер корзины
+     */
+    private int bucket(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & bucketMask;
+    }
+
+    /**
+     * Возвращает ёмкость кеша.
+     *
+     * @return максимальное число записей
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Возвращает число попаданий.
+     *
+     * @return число попаданий с момента создания или сброса статистики
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Возвращает число промахов.
+     *
+     * @return число промахов с момента создания или сброса статистики
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Возвращает число вытеснений.
+     *
+     * @return число вытесненных записей
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Возвращает долю попаданий.
+     *
+     * @return доля попаданий от 0 до 1
+     */
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Сбрасывает счётчики статистики (содержимое кеша сохраняется).
+     */
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * Ленивая инициализация общего кеша.
+     */
+    private static final class SharedHolder {
+        private static final EvaluationCache INSTANCE =
+                new EvaluationCache(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+    }
+}
@@ -0,0 +1,201 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.Arrays;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Запись партии: параметры, зерно генератора случайных чисел и все ходы по порядку.
+ * <p>
+ * По записи партия воспроизводится один в один. Ходы, выбранные запасной эвристикой
+ * ({@link MoveStrategy#chooseFallbackMove}) из-за нагрузки или срока, отмечаются: при
+ * воспроизведении они повторяются той же эвристикой. Текстовая форма ({@link #toString()},
+ * {@link #parse(String)}) годится для журналов: {@code HVA:10:10:5:<seed>:x,y x,y! ...},
+ * где {@code !} отмечает запасной ход.
+ * </p>
+ */
+public class GameRecord {
+
+    /** Разделитель полей текстовой формы */
+    private static final String FIELD_SEPARATOR = ":";
+
+    /** Отметка запасного хода в текстовой форме */
+    private static final char FALLBACK_MARK = '!';
+
+    /** Бит запасного хода в элементе {@link #moves} (индекс ячейки меньше {@link ZobristHash#MAX_CELLS}) */
+    private static final int FALLBACK_BIT = 1 << 30;
+
+    /** Режим игры */
+    private final Enums.GameMode mode;
+
+    /** Ширина поля */
+    private final int sizeX;
+
+    /** Высота поля */
+    private final int sizeY;
+
+    /** Длина победной последовательности */
+    private final int winLen;
+
+    /** Зерно генератора случайных чисел игры */
+    private final long seed;
+
+    /** Ходы: индексы ячеек {@code y * sizeX + x}, у запасных ходов с {@link #FALLBACK_BIT} */
+    private int[] moves = new int[16];
+
+    /** Число сделанных ходов */
+    private int length;
+
+    /**
+     * Конструктор.
+     *
+     * @param mode   режим игры
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     * @param seed   зерно генератора случайных чисел игры
+     */
+    public GameRecord(Enums.GameMode mode, int sizeX, int sizeY, int winLen, long seed) {
+        this.mode = mode;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.winLen = winLen;
+        this.seed = seed;
+    }
+
+    /**
+     * Добавляет очередной ход.
+     *
+     * @param x координата X
+     * @param y координата Y
+     */
+    public void add(int x, int y) {
+        add(x, y, false);
+    }
+
+    /**
+     * Добавляет очередной ход с отметкой о том, как он выбран.
+     *
+     * @param x        координата X
+     * @param y        координата Y
+     * @param fallback {@code true} если ход выбран запасной эвристикой
+     */
+    public void add(int x, int y, boolean fallback) {
+        if (length == moves.length) moves = Arrays.copyOf(moves, length * 2);
+        moves[length++] = (y * sizeX + x) | (fallback ? FALLBACK_BIT : 0);
+    }
+
+    /**
+     * Возвращает ход по номеру.
+     *
+     * @param ply номер хода, начиная с 0
+     * @return ход
+     */
+    public Move getMove(int ply) {
+        if (ply < 0 || ply >= length) throw new IndexOutOfBoundsException(ply);
+        int cell = moves[ply] & ~FALLBACK_BIT;
+        return new Move(cell % sizeX, cell / sizeX);
+    }
+
+    /**
+     * Проверяет, выбран ли ход запасной эвристикой.
+     *
+     * @param ply номер хода, начиная с 0
+     * @return {@code true} если ход запасной
+     */
+    public boolean isFallback(int ply) {
+        if (ply < 0 || ply >= length) throw new IndexOutOfBoundsException(ply);
+        return (moves[ply] & FALLBACK_BIT) != 0;
+    }
+
+    /**
+     * Возвращает число сделанных ходов.
+     *
+     * @return число ходов
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Возвращает режим игры.
+     *
+     * @return режим игры
+     */
+    public Enums.GameMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return ширина поля
+     */
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return высота поля
+     */
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    /**
+     * Возвращает длину победной последовательности.
+     *
+     * @return длина для победы
+     */
+    public int getWinLen() {
+        return winLen;
+    }
+
+    /**
+     * Возвращает зерно генератора случайных чисел игры.
+     *
+     * @return зерно
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Разбирает текстовую форму записи.
+     *
+     * @param text строка, полученная из {@link #toString()}
+     * @return запись партии
+     * @throws IllegalArgumentException если строка имеет неверный формат
+     */
+    public static GameRecord parse(String text) {
+        String[] parts = text.trim().split(FIELD_SEPARATOR, -1);
+        if (parts.length != 6) throw new IllegalArgumentException(Constants.GAME_RECORD_ERROR_LABEL + text);
+        GameRecord record = new GameRecord(Enums.GameMode.valueOf(parts[0]), Integer.parseInt(parts[1]),
+                Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Long.parseLong(parts[4]));
+        if (!parts[5].isBlank()) {
+            for (String move : parts[5].trim().split(" ")) {
+                int comma = move.indexOf(',');
+                boolean fallback = move.charAt(move.length() - 1) == FALLBACK_MARK;
+                record.add(Integer.parseInt(move.substring(0, comma)),
+                        Integer.parseInt(move.substring(comma + 1, move.length() - (fallback ? 1 : 0))), fallback);
+            }
+        }
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(mode).append(FIELD_SEPARATOR).append(sizeX).append(FIELD_SEPARATOR).append(sizeY)
+                .append(FIELD_SEPARATOR).append(winLen).append(FIELD_SEPARATOR).append(seed).append(FIELD_SEPARATOR);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) sb.append(' ');
+            int cell = moves[i] & ~FALLBACK_BIT;
+            sb.append(cell % sizeX).append(',').append(cell / sizeX);
+            if ((moves[i] & FALLBACK_BIT) != 0) sb.append(FALLBACK_MARK);
+        }
+        return sb.toString();
+    }
+}
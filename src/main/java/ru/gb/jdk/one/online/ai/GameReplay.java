@@ -0,0 +1,56 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.function.LongFunction;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Воспроизведение записанной партии для отладки ИИ.
+ * <p>
+ * Ходы человека берутся из записи, ходы компьютера заново вычисляются стратегией,
+ * созданной с тем же зерном, и сравниваются с записанными; отмеченные в записи запасные ходы
+ * повторяются через {@link MoveStrategy#chooseFallbackMove}. Поскольку генератор случайных
+ * чисел принадлежит игре, а не процессу, совпадение должно быть точным.
+ * </p>
+ */
+public final class GameReplay {
+
+    private GameReplay() {
+    }
+
+    /**
+     * Воспроизводит партию и сверяет ходы компьютера с записью.
+     *
+     * @param record  запись партии в режиме {@link Enums.GameMode#HVA}
+     * @param factory фабрика стратегии компьютера по зерну
+     * @return номер первого расходящегося хода или {@code -1}, если партия воспроизведена точно
+     */
+    public static int verify(GameRecord record, LongFunction<MoveStrategy> factory) {
+        MoveStrategy strategy = factory.apply(record.getSeed());
+        int[][] field = new int[record.getSizeY()][record.getSizeX()];
+        int dot = Enums.Dot.HUMAN.getValue();
+        for (int ply = 0; ply < record.size(); ply++) {
+            Move move = record.getMove(ply);
+            if (record.getMode() == Enums.GameMode.HVA && dot == Enums.Dot.AI.getValue()) {
+                Move replayed = record.isFallback(ply)
+                        ? strategy.chooseFallbackMove(GameRules.copyOf(field), record.getWinLen(), dot)
+                        : strategy.chooseMove(GameRules.copyOf(field), record.getWinLen(), dot);
+                if (!replayed.equals(move)) return ply;
+            }
+            field[move.y()][move.x()] = dot;
+            dot = GameRules.opponent(dot);
+        }
+        return -1;
+    }
+
+    /**
+     * Воспроизводит партию из текстовой записи стратегией {@link Strategies#forBoard} и печатает результат.
+     *
+     * @param args запись партии ({@link GameRecord#toString()})
+     */
+    public static void main(String[] args) {
+        GameRecord record = GameRecord.parse(String.join(" ", args));
+        int ply = verify(record, seed -> Strategies.forBoard(seed, record.getSizeX(), record.getSizeY()));
+        System.out.println(ply < 0 ? "Партия воспроизведена точно" : "Расхождение на ходе " + ply);
+    }
+}
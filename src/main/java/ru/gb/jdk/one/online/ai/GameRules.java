@@ -0,0 +1,97 @@
+package ru.gb.jdk.one.online.ai;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Правила игры "Крестики-нолики", не зависящие от интерфейса.
+ * <p>
+ * Все методы работают с переданным полем и не хранят состояния, поэтому
+ * могут безопасно вызываться из потока ИИ на собственной копии поля.
+ * </p>
+ */
+public final class GameRules {
+
+    private GameRules() {
+    }
+
+    /**
+     * Проверяет, находится ли ячейка в пределах поля.
+     *
+     * @param field игровое поле
+     * @param x     координата X
+     * @param y     координата Y
+     * @return {@code true} если ячейка допустима
+     */
+    public static boolean isValidCell(int[][] field, int x, int y) {
+        return y >= 0 && y < field.length && x >= 0 && x < field[y].length;
+    }
+
+    /**
+     * Проверяет, выиграл ли игрок, просматривая все линии поля. Векторная реализация
+     * берётся из {@link LineScanners}, если она доступна, иначе — линии {@link BoardGeometry}.
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @param dot    значение игрока
+     * @return {@code true} если игрок выиграл
+     */
+    public static boolean checkWin(int[][] field, int winLen, int dot) {
+        LineScanner scanner = LineScanners.forBoard(field[0].length, field.length, winLen);
+        if (scanner != null) return scanner.hasWin(field, dot);
+        return BoardGeometry.of(field[0].length, field.length, winLen).hasWin(field, dot);
+    }
+
+    /**
+     * Проверяет, замкнул ли последний ход победную линию. Просматриваются только линии
+     * через клетку хода из общей {@link BoardGeometry}, что гораздо дешевле полной проверки.
+     *
+     * @param field  игровое поле (ход уже сделан)
+     * @param winLen длина победной последовательности
+     * @param x      координата X хода
+     * @param y      координата Y хода
+     * @param dot    значение игрока
+     * @return {@code true} если ход победный
+     */
+    public static boolean isWinningMove(int[][] field, int winLen, int x, int y, int dot) {
+        return BoardGeometry.of(field[0].length, field.length, winLen).winsAt(field, x, y, dot);
+    }
+
+    /**
+     * Проверяет, заполнено ли поле.
+     *
+     * @param field игровое поле
+     * @return {@code true} если нет пустых ячеек
+     */
+    public static boolean isFull(int[][] field) {
+        for (int[] row : field) {
+            for (int cell : row) {
+                if (cell == Enums.Dot.EMPTY.getValue()) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает значение соперника для указанного игрока.
+     *
+     * @param dot значение игрока
+     * @return значение соперника
+     */
+    public static int opponent(int dot) {
+        return dot == Enums.Dot.HUMAN.getValue() ? Enums.Dot.AI.getValue() : Enums.Dot.HUMAN.getValue();
+    }
+
+    /**
+     * Создаёт независимую копию игрового поля.
+     *
+     * @param field игровое поле
+     * @return копия поля
+     */
+    public static int[][] copyOf(int[][] field) {
+        int[][] copy = new int[field.length][];
+        for (int y = 0; y < field.length; y++) {
+            copy[y] = field[y].clone();
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,284 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.Arrays;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Статическая оценка позиции по шаблонам линий.
+ * <p>
+ * Каждое окно длины {@code winLen} по строке, столбцу или диагонали кодируется
+ * троичным числом: цифра {@code k} — значение ячейки окна (0 — пусто, 1 — человек, 2 — компьютер).
+ * Оценка окна берётся из заранее вычисленной таблицы по этому коду: окно, в котором есть
+ * фишки только одного игрока, даёт ему тем больше очков, чем больше в нём фишек
+ * (открытые двойки, тройки, четвёрки и т.д.), смешанное окно не стоит ничего.
+ * </p>
+ * <p>
+ * Оценка поддерживается инкрементально: ход пересчитывает только окна, проходящие
+ * через изменённую ячейку. Окна и индекс «окна через ячейку» берутся из общей
+ * {@link BoardGeometry}, поэтому собственное состояние экземпляра — только коды окон.
+ * Экземпляр не потокобезопасен — у каждого потока поиска свой.
+ * </p>
+ */
+public class LineEvaluator {
+
+    /** Максимальная длина окна, для которой строится таблица (3^12 записей) */
+    public static final int MAX_WIN_LEN = 12;
+
+    /** Оценка окна, полностью занятого одним игроком */
+    public static final int WIN_SCORE = 1 << 24;
+
+    /** Степени тройки: вес ячейки в коде окна по её позиции */
+    private static final int[] POW3 = new int[MAX_WIN_LEN];
+
+    static {
+        POW3[0] = 1;
+        for (int i = 1; i < MAX_WIN_LEN; i++) POW3[i] = POW3[i - 1] * 3;
+    }
+
+    /** Таблицы оценок окон, общие для всех экземпляров, по длине окна */
+    private static final int[][] SCORE_TABLES = new int[MAX_WIN_LEN + 1][];
+
+    /** Ширина поля */
+    private final int sizeX;
+
+    /** Высота поля */
+    private final int sizeY;
+
+    /** Длина победной последовательности */
+    private final int winLen;
+
+    /** Таблица оценок окон: код окна → оценка с точки зрения компьютера */
+    private final int[] scoreTable;
+
+    /** Номера окон, проходящих через ячейку (CSR из общей геометрии) */
+    private final int[] cellWindows;
+
+    /** Позиция ячейки в соответствующем окне (параллельно {@link #cellWindows}) */
+    private final int[] cellWindowPos;
+
+    /** Общая геометрия поля */
+    private final BoardGeometry geometry;
+
+    /** Текущие коды окон */
+    private final int[] codes;
+
+    /** Число полностью занятых окон для каждого значения игрока */
+    private final int[] winCount = new int[3];
+
+    /** Сумма оценок всех окон с точки зрения компьютера */
+    private long total;
+
+    /**
+     * Создаёт оценщик для пустого поля.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     */
+    public LineEvaluator(int sizeX, int sizeY, int winLen) {
+        if (winLen < 1 || winLen > MAX_WIN_LEN) {
+            throw new IllegalArgumentException(Constants.WIN_LENGTH_ERROR_LABEL + winLen);
+        }
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.winLen = winLen;
+        this.scoreTable = scoreTable(winLen);
+
+        this.geometry = BoardGeometry.of(sizeX, sizeY, winLen);
+        this.cellWindows = geometry.cellLines();
+        this.cellWindowPos = geometry.cellLinePos();
+        this.codes = new int[geometry.getLineCount()];
+    }
+
+    /**
+     * Загружает позицию целиком, сбрасывая накопленное состояние.
+     *
+     * @param field игровое поле
+     */
+    public void load(int[][] field) {
+        Arrays.fill(codes, 0);
+        Arrays.fill(winCount, 0);
+        total = 0;
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < field[y].length; x++) {
+                if (field[y][x] != Enums.Dot.EMPTY.getValue()) place(x, y, field[y][x]);
+            }
+        }
+    }
+
+    /**
+     * Учитывает ход в ячейку: пересчитываются только окна, проходящие через неё.
+     *
+     * @param x   координата X
+     * @param y   координата Y
+     * @param dot значение игрока
+     */
+    public void place(int x, int y, int dot) {
+        update(y * sizeX + x, dot);
+    }
+
+    /**
+     * Отменяет ход в ячейку, сделанный ранее через {@link #place}.
+     *
+     * @param x   координата X
+     * @param y   координата Y
+     * @param dot значение игрока, который ходил
+     */
+    public void remove(int x, int y, int dot) {
+        update(y * sizeX + x, -dot);
+    }
+
+    /**
+     * Изменяет коды окон, проходящих через ячейку.
+     *
+     * @param cell  индекс ячейки
+     * @param delta изменение значения ячейки
+     */
+    private void update(int cell, int delta) {
+        for (int i = geometry.cellLineStart(cell), end = geometry.cellLineEnd(cell); i < end; i++) {
+            int w = cellWindows[i];
+            int before = codes[w];
+            int after = before + delta * POW3[cellWindowPos[i]];
+            codes[w] = after;
+            total += scoreTable[after] - scoreTable[before];
+            countWin(before, -1);
+            countWin(after, 1);
+        }
+    }
+
+    /**
+     * Обновляет счётчик полностью занятых окон.
+     *
+     * @param code код окна
+     * @param sign {@code 1} при появлении окна, {@code -1} при исчезновении
+     */
+    private void countWin(int code, int sign) {
+        int score = scoreTable[code];
+        if (score == WIN_SCORE) {
+            winCount[Enums.Dot.AI.getValue()] += sign;
+        } else if (score == -WIN_SCORE) {
+            winCount[Enums.Dot.HUMAN.getValue()] += sign;
+        }
+    }
+
+    /**
+     * Возвращает оценку позиции с точки зрения игрока.
+     *
+     * @param dot значение игрока
+     * @return оценка: чем больше, тем лучше позиция для игрока
+     */
+    public long evaluate(int dot) {
+        return dot == Enums.Dot.AI.getValue() ? total : -total;
+    }
+
+    /**
+     * Проверяет, собрал ли игрок победную последовательность.
+     *
+     * @param dot значение игрока
+     * @return {@code true} если игрок выиграл
+     */
+    public boolean hasWin(int dot) {
+        return winCount[dot] > 0;
+    }
+
+    /**
+     * Проверяет, построен ли оценщик для поля с заданными параметрами.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     * @return {@code true} если параметры совпадают
+     */
+    public boolean fits(int sizeX, int sizeY, int winLen) {
+        return this.sizeX == sizeX && this.sizeY == sizeY && this.winLen == winLen;
+    }
+
+    /**
+     * Возвращает длину победной последовательности.
+     *
+     * @return длина окна
+     */
+    public int getWinLen() {
+        return winLen;
+    }
+
+    /**
+     * Оценивает позицию полным перебором окон без таблиц и инкрементального состояния.
+     * <p>
+     * Используется как эталон для проверки и сравнения производительности.
+     * </p>
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @param dot    значение игрока
+     * @return оценка с точки зрения игрока
+     */
+    public static long evaluateNaive(int[][] field, int winLen, int dot) {
+        int sizeY = field.length;
+        int sizeX = field[0].length;
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+        long sum = 0;
+        for (int y = 0; y < sizeY; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                for (int[] d : directions) {
+                    int endX = x + (winLen - 1) * d[0];
+                    int endY = y + (winLen - 1) * d[1];
+                    if (endX < 0 || endX >= sizeX || endY < 0 || endY >= sizeY) continue;
+                    int ai = 0, human = 0;
+                    for (int i = 0; i < winLen; i++) {
+                        int cell = field[y + i * d[1]][x + i * d[0]];
+                        if (cell == Enums.Dot.AI.getValue()) ai++;
+                        else if (cell == Enums.Dot.HUMAN.getValue()) human++;
+                    }
+                    sum += windowScore(ai, human, winLen);
+                }
+            }
+        }
+        return dot == Enums.Dot.AI.getValue() ? sum : -sum;
+    }
+
+    /**
+     * Возвращает (при необходимости строит) таблицу оценок окон заданной длины.
+     *
+     * @param winLen длина окна
+     * @return таблица: код окна → оценка с точки зрения компьютера
+     */
+    private static synchronized int[] scoreTable(int winLen) {
+        int[] table = SCORE_TABLES[winLen];
+        if (table != null) return table;
+
+        int size = 1;
+        for (int i = 0; i < winLen; i++) size *= 3;
+        table = new int[size];
+        for (int code = 0; code < size; code++) {
+            int ai = 0, human = 0;
+            for (int rest = code; rest > 0; rest /= 3) {
+                int digit = rest % 3;
+                if (digit == Enums.Dot.AI.getValue()) ai++;
+                else if (digit == Enums.Dot.HUMAN.getValue()) human++;
+            }
+            table[code] = windowScore(ai, human, winLen);
+        }
+        SCORE_TABLES[winLen] = table;
+        return table;
+    }
+
+    /**
+     * Оценивает одно окно по количеству фишек каждого игрока.
+     *
+     * @param ai     число фишек компьютера
+     * @param human  число фишек человека
+     * @param winLen длина окна
+     * @return оценка окна с точки зрения компьютера
+     */
+    static int windowScore(int ai, int human, int winLen) {
+        if (ai > 0 && human > 0) return 0;
+        if (ai == winLen) return WIN_SCORE;
+        if (human == winLen) return -WIN_SCORE;
+        // Открытое окно с k фишками стоит 4^(k-1): двойка в 4 раза дороже одиночной фишки и т.д.
+        if (ai > 0) return 1 << (2 * (ai - 1));
+        if (human > 0) return -(1 << (2 * (human - 1)));
+        return 0;
+    }
+}
@@ -0,0 +1,30 @@
+package ru.gb.jdk.one.online.ai;
+
+/**
+ * Полный просмотр всех линий поля: проверка победы и оценка окон без инкрементального состояния.
+ * <p>
+ * Экземпляр строится для конкретных параметров поля, неизменяем и потокобезопасен.
+ * Результаты должны совпадать с {@link LineEvaluator}; реализация выбирается во время
+ * выполнения в {@link LineScanners}.
+ * </p>
+ */
+public interface LineScanner {
+
+    /**
+     * Проверяет, выиграл ли игрок.
+     *
+     * @param field игровое поле
+     * @param dot   значение игрока
+     * @return {@code true} если игрок выиграл
+     */
+    boolean hasWin(int[][] field, int dot);
+
+    /**
+     * Оценивает позицию по окнам так же, как {@link LineEvaluator}.
+     *
+     * @param field игровое поле
+     * @param dot   значение игрока
+     * @return оценка с точки зрения игрока
+     */
+    long score(int[][] field, int dot);
+}
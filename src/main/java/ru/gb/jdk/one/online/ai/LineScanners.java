@@ -0,0 +1,106 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Выбор реализации полного просмотра линий во время выполнения и кеш экземпляров по параметрам поля.
+ * <p>
+ * Векторная реализация {@link VectorLineScanner} выбирается, если JVM запущена с
+ * {@code --add-modules jdk.incubator.vector} и поле достаточно велико, чтобы векторы заполнялись;
+ * иначе вызывающий код пользуется скалярным {@link LineEvaluator}. Системное свойство
+ * {@value #SCANNER_PROPERTY} задаёт выбор принудительно: {@value #SCALAR} — всегда скалярный
+ * оценщик, {@value #VECTOR} — векторная реализация на любом поле. Если Vector API недоступен,
+ * {@value #VECTOR} не действует: выдаётся предупреждение и используется скалярный оценщик.
+ * </p>
+ */
+public final class LineScanners {
+
+    /** Системное свойство для принудительного выбора реализации */
+    public static final String SCANNER_PROPERTY = "tictactoe.scanner";
+
+    /** Значение свойства: скалярный оценщик */
+    public static final String SCALAR = "scalar";
+
+    /** Значение свойства: Vector API */
+    public static final String VECTOR = "vector";
+
+    /** Минимальное число клеток поля, начиная с которого выгоден Vector API */
+    private static final int VECTOR_MIN_CELLS = 49;
+
+    /** Загружен ли модуль Vector API (без него {@link VectorLineScanner} нельзя даже загрузить) */
+    private static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    /** Выбор, заданный системным свойством, или {@code null} для автоматического */
+    private static final String FORCED = forced();
+
+    /** Созданные экземпляры по упакованным параметрам поля */
+    private static final Map<Long, LineScanner> SCANNERS = new ConcurrentHashMap<>();
+
+    private LineScanners() {
+    }
+
+    /**
+     * Возвращает векторную реализацию для поля, если она доступна и выгодна (экземпляры переиспользуются).
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     * @return реализация просмотра линий или {@code null}, если следует использовать {@link LineEvaluator}
+     */
+    public static LineScanner forBoard(int sizeX, int sizeY, int winLen) {
+        if (!VECTOR_AVAILABLE || SCALAR.equals(FORCED)) return null;
+        if (FORCED == null && sizeX * sizeY < VECTOR_MIN_CELLS) return null;
+        long key = (long) sizeX << 40 | (long) sizeY << 20 | winLen;
+        LineScanner scanner = SCANNERS.get(key);
+        if (scanner == null) {
+            scanner = SCANNERS.computeIfAbsent(key, k -> new VectorLineScanner(sizeX, sizeY, winLen));
+        }
+        return scanner;
+    }
+
+    /**
+     * Создаёт векторную реализацию для поля независимо от его размера и системного свойства.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     * @return реализация просмотра линий
+     * @throws IllegalStateException если модуль {@code jdk.incubator.vector} не загружен
+     */
+    public static LineScanner vector(int sizeX, int sizeY, int winLen) {
+        if (!VECTOR_AVAILABLE) throw new IllegalStateException(Constants.VECTOR_UNAVAILABLE_LABEL);
+        return new VectorLineScanner(sizeX, sizeY, winLen);
+    }
+
+    /**
+     * Проверяет, доступен ли Vector API в текущей JVM.
+     *
+     * @return {@code true} если модуль {@code jdk.incubator.vector} загружен
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    /**
+     * Читает и проверяет системное свойство выбора реализации.
+     *
+     * @return {@value #SCALAR}, {@value #VECTOR} или {@code null} для автоматического выбора
+     */
+    private static String forced() {
+        String kind = System.getProperty(SCANNER_PROPERTY);
+        if (kind == null || SCALAR.equals(kind)) return kind;
+        System.Logger logger = System.getLogger(LineScanners.class.getName());
+        if (!VECTOR.equals(kind)) {
+            logger.log(System.Logger.Level.WARNING, Constants.SCANNER_PROPERTY_ERROR_LABEL + kind);
+            return null;
+        }
+        if (!VECTOR_AVAILABLE) {
+            logger.log(System.Logger.Level.WARNING, Constants.VECTOR_UNAVAILABLE_LABEL);
+            return SCALAR;
+        }
+        return kind;
+    }
+}
@@ -0,0 +1,570 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Непрерывный анализ позиции в фоновом потоке: оценка каждого хода-кандидата (multi-PV).
+ * <p>
+ * Поиск — итеративное углубление альфа-бета в форме negamax со статической оценкой
+ * {@link LineEvaluator}. На каждой глубине каждый ход корня перебирается с полным окном,
+ * поэтому оценка получается точной для всех кандидатов, а не только для лучшего.
+ * После каждого хода корня публикуется новый неизменяемый {@link Snapshot}; потребитель
+ * (поток обработки событий) сам решает, как часто его читать через {@link #latest()},
+ * поэтому скорость поиска не влияет на частоту перерисовок.
+ * </p>
+ * <p>
+ * При новой позиции поиск прежней прерывается (проверка каждые 64 узла, доли миллисекунды),
+ * а таблица транспозиций, буферы и оценщик сохраняются: точные оценки ходов, оставшиеся
+ * в таблице от анализа прежней позиции, показываются сразу, остальные записи служат
+ * подсказками порядка ходов.
+ * Методы управления потокобезопасны; поиск идёт в одном собственном потоке.
+ * </p>
+ */
+public class LiveAnalysis implements AutoCloseable {
+
+    /** Оценка выигранной позиции; выигрыш за меньшее число ходов оценивается выше */
+    public static final long WIN_VALUE = 1L << 50;
+
+    /** Наибольшее число ходов до выигрыша, которое отличает оценку выигрыша от обычной */
+    private static final long MAX_PLY = 1 << 12;
+
+    /** Граница окна поиска, недостижимая для оценок */
+    private static final long INFINITY = WIN_VALUE * 2;
+
+    /** Размер таблицы транспозиций по умолчанию (записей) */
+    private static final int DEFAULT_TABLE_SIZE = 1 << 18;
+
+    /** Тип записи: точное значение */
+    private static final int EXACT = 0;
+
+    /** Тип записи: нижняя граница */
+    private static final int LOWER = 1;
+
+    /** Тип записи: верхняя граница */
+    private static final int UPPER = 2;
+
+    /** Число бит глубины в записи таблицы транспозиций: глубина не больше числа клеток поля */
+    private static final int DEPTH_BITS = 11;
+
+    /** Ключ, добавляемый к хешу, когда ходит компьютер */
+    private static final long SIDE_KEY = 0x5851F42D4C957F2DL;
+
+    /** Исключение, которым прерывается поиск устаревшей позиции */
+    private static final RuntimeException STOP = new RuntimeException(null, null, false, false) {
+    };
+
+    /** Хеши позиций таблицы транспозиций */
+    private final long[] tableKeys;
+
+    /** Значения записей таблицы транспозиций */
+    private final long[] tableValues;
+
+    /** Упакованные данные записей: глубина, тип границы и лучший ход (0 — запись пуста) */
+    private final int[] tableData;
+
+    /** Поток поиска */
+    private final Thread thread;
+
+    /** Монитор очереди позиций */
+    private final Object lock = new Object();
+
+    /** Последний опубликованный результат */
+    private final AtomicReference<Snapshot> latest = new AtomicReference<>();
+
+    /** Номер текущего задания: меняется при каждой новой позиции и остановке */
+    private volatile int generation;
+
+    /** Позиция, ожидающая анализа (под {@link #lock}) */
+    private int[][] pendingField;
+
+    /** Длина для победы ожидающей позиции (под {@link #lock}) */
+    private int pendingWinLen;
+
+    /** Ходящий игрок ожидающей позиции (под {@link #lock}) */
+    private int pendingDot;
+
+    /** Закрыт ли анализ (под {@link #lock}) */
+    private boolean closed;
+
+    /** Номер задания, которое выполняет поток поиска */
+    private int searchGeneration;
+
+    /** Поле анализируемой позиции, построчно */
+    private int[] cells;
+
+    /** Ширина поля */
+    private int sizeX;
+
+    /** Оценщик анализируемой позиции */
+    private LineEvaluator evaluator;
+
+    /** Геометрия поля */
+    private BoardGeometry geometry;
+
+    /** Ходы по уровням дерева */
+    private int[][] moveBuffers;
+
+    /** Оценки для упорядочивания ходов по уровням дерева */
+    private long[][] orderBuffers;
+
+    /** Число посещённых узлов текущего задания */
+    private long nodes;
+
+    /**
+     * Результат анализа на момент публикации. Массивы не изменяются после публикации.
+     *
+     * @param generation номер задания
+     * @param sizeX      ширина поля
+     * @param sizeY      высота поля
+     * @param dot        значение ходящего игрока
+     * @param depth      глубина, на которой оценены все кандидаты (0 — ещё не все оценены)
+     * @param scores     оценки ходов для ходящего по клеткам {@code y * sizeX + x}
+     * @param depths     глубина, на которой получена оценка клетки (0 — клетка не оценена)
+     * @param nodes      число посещённых узлов
+     * @param complete   закончен ли анализ (дальше углубляться некуда)
+     */
+    public record Snapshot(int generation, int sizeX, int sizeY, int dot, int depth, long[] scores, int[] depths,
+                           long nodes, boolean complete) {
+
+        /**
+         * Проверяет, есть ли оценка хода в клетку.
+         *
+         * @param x координата X
+         * @param y координата Y
+         * @return {@code true} если клетка оценена
+         */
+        public boolean has(int x, int y) {
+            return depths[y * sizeX + x] > 0;
+        }
+
+        /**
+         * Возвращает оценку хода в клетку.
+         *
+         * @param x координата X
+         * @param y координата Y
+         * @return оценка для ходящего
+         */
+        public long score(int x, int y) {
+            return scores[y * sizeX + x];
+        }
+
+        /**
+         * Возвращает глубину оценки хода в клетку.
+         *
+         * @param x координата X
+         * @param y координата Y
+         * @return глубина (0 — клетка не оценена)
+         */
+        public int depth(int x, int y) {
+            return depths[y * sizeX + x];
+        }
+    }
+
+    /**
+     * Создаёт анализ с таблицей транспозиций размера по умолчанию и запускает поток поиска.
+     */
+    public LiveAnalysis() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Создаёт анализ и запускает поток поиска.
+     *
+     * @param tableSize число записей таблицы транспозиций (округляется вниз до степени двойки)
+     */
+    public LiveAnalysis(int tableSize) {
+        int size = Integer.highestOneBit(Math.max(1, tableSize));
+        tableKeys = new long[size];
+        tableValues = new long[size];
+        tableData = new int[size];
+        thread = new Thread(this::run, "live-analysis");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Начинает анализ позиции, прерывая анализ предыдущей.
+     *
+     * @param field  игровое поле (копируется)
+     * @param winLen длина победной последовательности
+     * @param dot    значение ходящего игрока
+     */
+    public void analyze(int[][] field, int winLen, int dot) {
+        int[][] copy = GameRules.copyOf(field);
+        synchronized (lock) {
+            generation++;
+            pendingField = copy;
+            pendingWinLen = winLen;
+            pendingDot = dot;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Останавливает анализ; результат {@link #latest()} сбрасывается.
+     */
+    public void stop() {
+        synchronized (lock) {
+            generation++;
+            pendingField = null;
+        }
+    }
+
+    /**
+     * Возвращает последний результат анализа текущей позиции.
+     *
+     * @return результат или {@code null}, если для текущей позиции ещё ничего не найдено
+     */
+    public Snapshot latest() {
+        Snapshot snapshot = latest.get();
+        return snapshot != null && snapshot.generation() == generation ? snapshot : null;
+    }
+
+    /**
+     * Останавливает поток поиска.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            generation++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Цикл потока поиска: ждёт позицию и анализирует её, пока не придёт следующая.
+     */
+    private void run() {
+        while (true) {
+            int[][] field;
+            int winLen;
+            int dot;
+            synchronized (lock) {
+                while (!closed && pendingField == null) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) return;
+                field = pendingField;
+                winLen = pendingWinLen;
+                dot = pendingDot;
+                pendingField = null;
+                searchGeneration = generation;
+            }
+            try {
+                analyzePosition(field, winLen, dot);
+            } catch (RuntimeException e) {
+                // Ошибка в одной позиции не должна останавливать анализ следующих
+                if (e != STOP) {
+                    System.getLogger(LiveAnalysis.class.getName()).log(System.Logger.Level.WARNING,
+                            Constants.ANALYSIS_ERROR_LABEL, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Итеративное углубление по позиции с публикацией оценок всех кандидатов.
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @param dot    значение ходящего игрока
+     */
+    private void analyzePosition(int[][] field, int winLen, int dot) {
+        int sizeY = field.length;
+        sizeX = field[0].length;
+        int count = sizeX * sizeY;
+        if (evaluator == null || !evaluator.fits(sizeX, sizeY, winLen)) {
+            evaluator = new LineEvaluator(sizeX, sizeY, winLen);
+            geometry = BoardGeometry.of(sizeX, sizeY, winLen);
+            moveBuffers = new int[count + 2][count];
+            orderBuffers = new long[count + 2][count];
+        }
+        evaluator.load(field);
+        cells = new int[count];
+        int empty = 0;
+        for (int y = 0; y < sizeY; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                cells[y * sizeX + x] = field[y][x];
+                if (field[y][x] == Enums.Dot.EMPTY.getValue()) empty++;
+            }
+        }
+        nodes = 0;
+        long hash = ZobristHash.of(field, winLen);
+        int[] roots = new int[count];
+        int rootCount = empty == 0 ? 0 : geometry.candidates(cells, roots);
+        long[] scores = new long[count];
+        int[] depths = new int[count];
+
+        // Точные оценки, оставшиеся в таблице от анализа прежней позиции, показываются сразу
+        int opponent = GameRules.opponent(dot);
+        for (int i = 0; i < rootCount; i++) {
+            int cell = roots[i];
+            long childKey = sideKey(ZobristHash.toggle(hash, sizeX, cell % sizeX, cell / sizeX, dot), opponent);
+            int slot = slot(childKey);
+            if (tableKeys[slot] == childKey && tableData[slot] != 0 && unpackFlag(tableData[slot]) == EXACT) {
+                scores[cell] = -fromTable(tableValues[slot], 1);
+                depths[cell] = unpackDepth(tableData[slot]) + 1;
+            }
+        }
+        publish(sizeY, dot, roots, rootCount, scores, depths, rootCount == 0);
+
+        for (int depth = 1; depth <= empty; depth++) {
+            boolean decided = true;
+            for (int i = 0; i < rootCount; i++) {
+                int cell = roots[i];
+                if (depths[cell] < depth) {
+                    scores[cell] = tryMove(cell, dot, hash, empty, depth, 1, -INFINITY, INFINITY);
+                    depths[cell] = depth;
+                    publish(sizeY, dot, roots, rootCount, scores, depths, false);
+                }
+                if (Math.abs(scores[cell]) < WIN_VALUE - MAX_PLY) decided = false;
+            }
+            if (decided || depth == empty) {
+                publish(sizeY, dot, roots, rootCount, scores, depths, true);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Публикует копию текущих оценок.
+     *
+     * @param sizeY     высота поля
+     * @param dot       значение ходящего игрока
+     * @param roots     ходы-кандидаты корня
+     * @param rootCount число кандидатов
+     * @param scores    оценки клеток
+     * @param depths    глубины оценок клеток
+     * @param complete  закончен ли анализ
+     */
+    private void publish(int sizeY, int dot, int[] roots, int rootCount, long[] scores, int[] depths,
+                         boolean complete) {
+        int depth = rootCount == 0 ? 0 : Integer.MAX_VALUE;
+        for (int i = 0; i < rootCount; i++) {
+            depth = Math.min(depth, depths[roots[i]]);
+        }
+        latest.set(new Snapshot(searchGeneration, sizeX, sizeY, dot, depth, scores.clone(), depths.clone(),
+                nodes, complete));
+    }
+
+    /**
+     * Делает ход, оценивает получившуюся позицию и отменяет ход.
+     *
+     * @param cell  индекс ячейки
+     * @param dot   значение ходящего игрока
+     * @param hash  хеш позиции до хода
+     * @param empty число пустых ячеек до хода
+     * @param depth оставшаяся глубина, включая этот ход
+     * @param ply   номер хода от корня
+     * @param alpha нижняя граница окна
+     * @param beta  верхняя граница окна
+     * @return оценка хода для ходящего
+     */
+    private long tryMove(int cell, int dot, long hash, int empty, int depth, int ply, long alpha, long beta) {
+        int x = cell % sizeX;
+        int y = cell / sizeX;
+        cells[cell] = dot;
+        evaluator.place(x, y, dot);
+        long value;
+        if (evaluator.hasWin(dot)) {
+            value = WIN_VALUE - ply;
+        } else if (empty == 1) {
+            value = 0;
+        } else if (depth == 1) {
+            value = evaluator.evaluate(dot);
+        } else {
+            value = -search(GameRules.opponent(dot), ZobristHash.toggle(hash, sizeX, x, y, dot),
+                    empty - 1, depth - 1, ply + 1, -beta, -alpha);
+        }
+        evaluator.remove(x, y, dot);
+        cells[cell] = Enums.Dot.EMPTY.getValue();
+        return value;
+    }
+
+    /**
+     * Перебор альфа-бета в форме negamax с ограничением глубины.
+     *
+     * @param dot   значение ходящего игрока
+     * @param hash  хеш позиции (без учёта стороны)
+     * @param empty число пустых ячеек
+     * @param depth оставшаяся глубина
+     * @param ply   номер хода от корня
+     * @param alpha нижняя граница окна
+     * @param beta  верхняя граница окна
+     * @return оценка позиции для ходящего
+     */
+    private long search(int dot, long hash, int empty, int depth, int ply, long alpha, long beta) {
+        if ((++nodes & 0x3F) == 0 && generation != searchGeneration) throw STOP;
+        long alphaOrig = alpha;
+        long key = sideKey(hash, dot);
+        int slot = slot(key);
+        int hintCell = -1;
+        if (tableKeys[slot] == key && tableData[slot] != 0) {
+            int data = tableData[slot];
+            hintCell = unpackCell(data);
+            if (cells[hintCell] != Enums.Dot.EMPTY.getValue()) hintCell = -1; // Коллизия хешей
+            if (unpackDepth(data) >= depth) {
+                long value = fromTable(tableValues[slot], ply);
+                int flag = unpackFlag(data);
+                if (flag == EXACT) return value;
+                if (flag == LOWER) alpha = Math.max(alpha, value);
+                else beta = Math.min(beta, value);
+                if (alpha >= beta) return value;
+            }
+        }
+
+        long bestValue = -INFINITY;
+        int bestCell = -1;
+        if (hintCell >= 0) {
+            bestValue = tryMove(hintCell, dot, hash, empty, depth, ply, alpha, beta);
+            bestCell = hintCell;
+            alpha = Math.max(alpha, bestValue);
+        }
+        if (alpha < beta) {
+            int[] moves = moveBuffers[ply];
+            int count = orderedMoves(dot, moves, orderBuffers[ply]);
+            for (int i = 0; i < count; i++) {
+                int cell = moves[i];
+                if (cell == hintCell) continue;
+                long value = tryMove(cell, dot, hash, empty, depth, ply, alpha, beta);
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestCell = cell;
+                    alpha = Math.max(alpha, value);
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+
+        int flag = bestValue <= alphaOrig ? UPPER : bestValue >= beta ? LOWER : EXACT;
+        tableKeys[slot] = key;
+        tableValues[slot] = toTable(bestValue, ply);
+        tableData[slot] = pack(depth, flag, bestCell);
+        return bestValue;
+    }
+
+    /**
+     * Отбирает ходы-кандидаты и упорядочивает их по убыванию статической оценки после хода.
+     *
+     * @param dot    значение ходящего игрока
+     * @param moves  массив для ходов
+     * @param scores массив для оценок
+     * @return число ходов
+     */
+    private int orderedMoves(int dot, int[] moves, long[] scores) {
+        int count = geometry.candidates(cells, moves);
+        for (int n = 0; n < count; n++) {
+            int cell = moves[n];
+            evaluator.place(cell % sizeX, cell / sizeX, dot);
+            long score = evaluator.evaluate(dot);
+            evaluator.remove(cell % sizeX, cell / sizeX, dot);
+            // Сортировка вставкой: ходов немного
+            int i = n;
+            while (i > 0 && scores[i - 1] < score) {
+                scores[i] = scores[i - 1];
+                moves[i] = moves[i - 1];
+                i--;
+            }
+            scores[i] = score;
+            moves[i] = cell;
+        }
+        return count;
+    }
+
+    /**
+     * Добавляет к хешу позиции сторону хода.
+     *
+     * @param hash хеш позиции
+     * @param dot  значение ходящего игрока
+     * @return ключ таблицы транспозиций
+     */
+    private static long sideKey(long hash, int dot) {
+        return dot == Enums.Dot.AI.getValue() ? hash ^ SIDE_KEY : hash;
+    }
+
+    /**
+     * Вычисляет запись таблицы транспозиций для ключа.
+     *
+     * @param key ключ
+     * @return номер записи
+     */
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & (tableKeys.length - 1);
+    }
+
+    /**
+     * Переводит оценку выигрыша из отсчёта от корня в отсчёт от узла, чтобы запись
+     * оставалась верной при встрече позиции на другой глубине.
+     *
+     * @param value оценка
+     * @param ply   номер хода узла от корня
+     * @return оценка для таблицы
+     */
+    private static long toTable(long value, int ply) {
+        if (value >= WIN_VALUE - MAX_PLY) return value + ply;
+        if (value <= -WIN_VALUE + MAX_PLY) return value - ply;
+        return value;
+    }
+
+    /**
+     * Переводит оценку из таблицы в отсчёт от корня.
+     *
+     * @param value оценка из таблицы
+     * @param ply   номер хода узла от корня
+     * @return оценка
+     */
+    private static long fromTable(long value, int ply) {
+        if (value >= WIN_VALUE - MAX_PLY) return value - ply;
+        if (value <= -WIN_VALUE + MAX_PLY) return value + ply;
+        return value;
+    }
+
+    /**
+     * Упаковывает данные записи таблицы транспозиций.
+     *
+     * @param depth глубина
+     * @param flag  тип границы
+     * @param cell  лучший ход
+     * @return упакованные данные (не 0, так как глубина не меньше 1)
+     */
+    private static int pack(int depth, int flag, int cell) {
+        return (cell << (DEPTH_BITS + 2)) | (flag << DEPTH_BITS) | depth;
+    }
+
+    /**
+     * Извлекает глубину из записи таблицы транспозиций.
+     *
+     * @param data упакованные данные
+     * @return глубина
+     */
+    private static int unpackDepth(int data) {
+        return data & ((1 << DEPTH_BITS) - 1);
+    }
+
+    /**
+     * Извлекает тип границы из записи таблицы транспозиций.
+     *
+     * @param data упакованные данные
+     * @return тип границы
+     */
+    private static int unpackFlag(int data) {
+        return (data >> DEPTH_BITS) & 0b11;
+    }
+
+    /**
+     * Извлекает лучший ход из записи таблицы транспозиций.
+     *
+     * @param data упакованные данные
+     * @return индекс ячейки
+     */
+    private static int unpackCell(int data) {
+        return data >> (DEPTH_BITS + 2);
+    }
+}
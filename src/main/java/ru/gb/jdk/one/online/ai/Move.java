@@ -0,0 +1,10 @@
+package ru.gb.jdk.one.online.ai;
+
+/**
+ * Ход на игровом поле — координаты ячейки.
+ *
+ * @param x координата X (столбец)
+ * @param y координата Y (строка)
+ */
+public record Move(int x, int y) {
+}
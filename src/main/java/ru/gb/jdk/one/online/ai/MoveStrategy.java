@@ -0,0 +1,64 @@
+package ru.gb.jdk.one.online.ai;
+
+/**
+ * Стратегия выбора хода компьютера.
+ * <p>
+ * Реализация получает собственную копию поля и может свободно изменять её во время поиска.
+ * Длительные реализации должны периодически проверять флаг прерывания потока
+ * и завершаться, если ход больше не нужен (например, началась новая игра).
+ * Планировщик ({@link AiScheduler}) передаёт срок хода; реализации с дорогим поиском
+ * переопределяют {@link #chooseMove(int[][], int, int, long)} и укладываются в него;
+ * если поиск к сроку не успевает, ход выбирает {@link #chooseFallbackMove}.
+ * </p>
+ */
+@FunctionalInterface
+public interface MoveStrategy {
+
+    /**
+     * Выбирает ход для игрока.
+     *
+     * @param field  копия игрового поля, принадлежащая вызову
+     * @param winLen длина победной последовательности
+     * @param dot    значение игрока, который ходит
+     * @return пустая ячейка, в которую нужно сходить
+     */
+    Move chooseMove(int[][] field, int winLen, int dot);
+
+    /**
+     * Выбирает ход, укладываясь в срок.
+     * <p>
+     * По умолчанию срок игнорируется: подходит для стратегий, время работы которых мало.
+     * Стратегия, не успевшая к сроку, не подменяет ход сама, а бросает исключение: вызывающий код
+     * берёт ход {@link #chooseFallbackMove} и отмечает его в записи партии ({@link GameRecord}),
+     * чтобы партию можно было воспроизвести.
+     * </p>
+     *
+     * @param field         копия игрового поля, принадлежащая вызову
+     * @param winLen        длина победной последовательности
+     * @param dot           значение игрока, который ходит
+     * @param deadlineNanos срок по {@link System#nanoTime()}, к которому нужен ход
+     * @return пустая ячейка, в которую нужно сходить
+     * @throws EndgameSolver.DeadlineExceededException если ход не найден к сроку
+     */
+    default Move chooseMove(int[][] field, int winLen, int dot, long deadlineNanos) {
+        return chooseMove(field, winLen, dot);
+    }
+
+    /**
+     * Выбирает ход дешёвой запасной эвристикой без поиска: при сбросе нагрузки
+     * планировщиком или когда поиск не успел к сроку.
+     * <p>
+     * Ход зависит только от позиции и состояния стратегии (генератора с зерном игры),
+     * поэтому {@link GameReplay} повторяет его по отметке в записи партии.
+     * По умолчанию выбирается обычный ход: подходит для стратегий, время работы которых мало.
+     * </p>
+     *
+     * @param field  копия игрового поля, принадлежащая вызову
+     * @param winLen длина победной последовательности
+     * @param dot    значение игрока, который ходит
+     * @return пустая ячейка, в которую нужно сходить
+     */
+    default Move chooseFallbackMove(int[][] field, int winLen, int dot) {
+        return chooseMove(field, winLen, dot);
+    }
+}
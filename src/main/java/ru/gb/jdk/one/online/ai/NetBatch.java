@@ -0,0 +1,223 @@
+package ru.gb.jdk.one.online.ai;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Пакет позиций для совместного вычисления {@link NeuralNet}.
+ * <p>
+ * Все буферы выделяются при создании пакета и переиспользуются: добавление позиций
+ * и вычисление не создают объектов. Первый слой считается сразу при добавлении позиции
+ * (разреженно, по занятым клеткам), головы сети — в {@link #evaluate()} для всего пакета:
+ * каждая строка весов читается из памяти один раз и применяется ко всем позициям пакета.
+ * Экземпляр не потокобезопасен.
+ * </p>
+ */
+public final class NetBatch {
+
+    /** Сеть */
+    private final NeuralNet net;
+
+    /** Наибольшее число позиций */
+    private final int capacity;
+
+    /** Число клеток поля */
+    private final int cells;
+
+    /** Размер скрытого слоя */
+    private final int hidden;
+
+    /** Активации скрытого слоя, {@code [capacity][hidden]} */
+    private final float[] activations;
+
+    /** Пустые клетки позиций, {@code [capacity][cells]} */
+    private final boolean[] empty;
+
+    /** Оценки позиций */
+    private final float[] values;
+
+    /** Вероятности ходов, {@code [capacity][cells]} */
+    private final float[] policy;
+
+    /** Число позиций в пакете */
+    private int size;
+
+    /**
+     * Конструктор.
+     *
+     * @param net      сеть
+     * @param capacity наибольшее число позиций
+     */
+    NetBatch(NeuralNet net, int capacity) {
+        this.net = net;
+        this.capacity = capacity;
+        this.cells = net.getSizeX() * net.getSizeY();
+        this.hidden = net.getHidden();
+        this.activations = new float[capacity * hidden];
+        this.empty = new boolean[capacity * cells];
+        this.values = new float[capacity];
+        this.policy = new float[capacity * cells];
+    }
+
+    /**
+     * Очищает пакет.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Добавляет позицию и вычисляет для неё первый слой.
+     *
+     * @param field игровое поле размера сети
+     * @param dot   значение игрока, с точки зрения которого оценивается позиция
+     * @return номер позиции в пакете
+     * @throws IllegalStateException если пакет заполнен
+     */
+    public int add(int[][] field, int dot) {
+        if (size == capacity) throw new IllegalStateException(Constants.NEURAL_NET_ERROR_LABEL + "batch is full");
+        int index = size++;
+        int base = index * hidden;
+        System.arraycopy(net.hiddenBias, 0, activations, base, hidden);
+        float[] weights = net.inputWeights;
+        int sizeX = field[0].length;
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                int cell = y * sizeX + x;
+                int stone = field[y][x];
+                empty[index * cells + cell] = stone == Enums.Dot.EMPTY.getValue();
+                if (stone == Enums.Dot.EMPTY.getValue()) continue;
+                int row = (stone == dot ? cell : cells + cell) * hidden;
+                for (int h = 0; h < hidden; h++) {
+                    activations[base + h] += weights[row + h];
+                }
+            }
+        }
+        for (int h = 0; h < hidden; h++) {
+            activations[base + h] = Math.max(0, activations[base + h]);
+        }
+        return index;
+    }
+
+    /**
+     * Вычисляет оценки и вероятности ходов для всех позиций пакета.
+     */
+    public void evaluate() {
+        evaluate(true);
+    }
+
+    /**
+     * Вычисляет оценки позиций пакета и, если нужно, вероятности ходов.
+     * <p>
+     * Листьям поиска нужна только оценка; голова ходов — самая дорогая часть сети.
+     * </p>
+     *
+     * @param withPolicy вычислять ли вероятности ходов
+     */
+    public void evaluate(boolean withPolicy) {
+        float[] valueWeights = net.valueWeights;
+        for (int b = 0; b < size; b++) {
+            values[b] = (float) Math.tanh(net.valueBias + dot(activations, b * hidden, valueWeights, 0));
+        }
+        if (!withPolicy) return;
+        float[] policyWeights = net.policyWeights;
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell * hidden;
+            float bias = net.policyBias[cell];
+            int b = 0;
+            // По четыре позиции за проход: каждый вес строки загружается один раз на четыре позиции
+            for (; b + 4 <= size; b += 4) {
+                int a0 = b * hidden;
+                int a1 = a0 + hidden;
+                int a2 = a1 + hidden;
+                int a3 = a2 + hidden;
+                float s0 = bias, s1 = bias, s2 = bias, s3 = bias;
+                for (int h = 0; h < hidden; h++) {
+                    float w = policyWeights[row + h];
+                    s0 += activations[a0 + h] * w;
+                    s1 += activations[a1 + h] * w;
+                    s2 += activations[a2 + h] * w;
+                    s3 += activations[a3 + h] * w;
+                }
+                policy[b * cells + cell] = s0;
+                policy[(b + 1) * cells + cell] = s1;
+                policy[(b + 2) * cells + cell] = s2;
+                policy[(b + 3) * cells + cell] = s3;
+            }
+            for (; b < size; b++) {
+                policy[b * cells + cell] = bias + dot(activations, b * hidden, policyWeights, row);
+            }
+        }
+        for (int b = 0; b < size; b++) {
+            softmax(b * cells);
+        }
+    }
+
+    /**
+     * Возвращает оценку позиции.
+     *
+     * @param index номер позиции в пакете
+     * @return оценка от −1 (проигрыш) до 1 (выигрыш) для игрока, указанного при добавлении
+     */
+    public float value(int index) {
+        return values[index];
+    }
+
+    /**
+     * Возвращает вероятность хода.
+     *
+     * @param index номер позиции в пакете
+     * @param cell  индекс клетки {@code y * sizeX + x}
+     * @return вероятность (0 для занятых клеток)
+     */
+    public float policy(int index, int cell) {
+        return policy[index * cells + cell];
+    }
+
+    /**
+     * Возвращает число позиций в пакете.
+     *
+     * @return число позиций
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Скалярное произведение отрезков двух массивов длины скрытого слоя.
+     *
+     * @param a      первый массив
+     * @param aStart начало отрезка первого массива
+     * @param b      второй массив
+     * @param bStart начало отрезка второго массива
+     * @return скалярное произведение
+     */
+    private float dot(float[] a, int aStart, float[] b, int bStart) {
+        float sum = 0;
+        for (int h = 0; h < hidden; h++) {
+            sum += a[aStart + h] * b[bStart + h];
+        }
+        return sum;
+    }
+
+    /**
+     * Применяет softmax к логитам позиции, обнуляя занятые клетки.
+     *
+     * @param base начало логитов позиции
+     */
+    private void softmax(int base) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int cell = 0; cell < cells; cell++) {
+            if (empty[base + cell]) max = Math.max(max, policy[base + cell]);
+        }
+        float sum = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            float p = empty[base + cell] ? (float) Math.exp(policy[base + cell] - max) : 0;
+            policy[base + cell] = p;
+            sum += p;
+        }
+        if (sum == 0) return;
+        for (int cell = 0; cell < cells; cell++) {
+            policy[base + cell] /= sum;
+        }
+    }
+}
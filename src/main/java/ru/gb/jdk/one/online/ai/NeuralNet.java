@@ -0,0 +1,262 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Небольшая нейросеть оценки позиции и распределения ходов (value/policy) для поля фиксированного размера.
+ * <p>
+ * Вход — две плоскости с точки зрения ходящего: его фишки и фишки соперника. Скрытый слой
+ * полносвязный с активацией ReLU; из него две головы: оценка позиции ({@code tanh}, от −1 до 1)
+ * и логиты ходов по клеткам (softmax по пустым клеткам). Вход разрежен, поэтому первый слой
+ * считается суммой столбцов весов для занятых клеток. Веса неизменяемы после загрузки,
+ * поэтому сеть можно разделять между потоками; вычисление идёт через {@link NetBatch}.
+ * </p>
+ * <p>
+ * Формат файла весов (big-endian): сигнатура, ширина, высота, размер скрытого слоя (int),
+ * затем массивы float: веса входа {@code [2 * cells][hidden]}, смещения скрытого слоя {@code [hidden]},
+ * веса оценки {@code [hidden]}, смещение оценки, веса ходов {@code [cells][hidden]}, смещения ходов {@code [cells]}.
+ * </p>
+ */
+public final class NeuralNet {
+
+    /** Сигнатура файла весов */
+    public static final int MAGIC = 0x4E4E5454;
+
+    /** Наибольший размер скрытого слоя в файле весов */
+    public static final int MAX_HIDDEN = 4096;
+
+    /** Ширина поля */
+    private final int sizeX;
+
+    /** Высота поля */
+    private final int sizeY;
+
+    /** Размер скрытого слоя */
+    private final int hidden;
+
+    /** Веса входа: строка на признак (своя фишка в клетке, затем фишка соперника) */
+    final float[] inputWeights;
+
+    /** Смещения скрытого слоя */
+    final float[] hiddenBias;
+
+    /** Веса головы оценки */
+    final float[] valueWeights;
+
+    /** Смещение головы оценки */
+    final float valueBias;
+
+    /** Веса головы ходов: строка на клетку */
+    final float[] policyWeights;
+
+    /** Смещения головы ходов */
+    final float[] policyBias;
+
+    /**
+     * Конструктор.
+     *
+     * @param sizeX         ширина поля
+     * @param sizeY         высота поля
+     * @param hidden        размер скрытого слоя
+     * @param inputWeights  веса входа
+     * @param hiddenBias    смещения скрытого слоя
+     * @param valueWeights  веса головы оценки
+     * @param valueBias     смещение головы оценки
+     * @param policyWeights веса головы ходов
+     * @param policyBias    смещения головы ходов
+     */
+    private NeuralNet(int sizeX, int sizeY, int hidden, float[] inputWeights, float[] hiddenBias,
+                      float[] valueWeights, float valueBias, float[] policyWeights, float[] policyBias) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.hidden = hidden;
+        this.inputWeights = inputWeights;
+        this.hiddenBias = hiddenBias;
+        this.valueWeights = valueWeights;
+        this.valueBias = valueBias;
+        this.policyWeights = policyWeights;
+        this.policyBias = policyBias;
+    }
+
+    /**
+     * Создаёт сеть со случайными весами (инициализация He) — отправная точка обучения.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param hidden размер скрытого слоя
+     * @param seed   зерно генератора случайных чисел
+     * @return сеть
+     */
+    public static NeuralNet random(int sizeX, int sizeY, int hidden, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int cells = sizeX * sizeY;
+        return new NeuralNet(sizeX, sizeY, hidden,
+                gaussian(random, 2 * cells * hidden, Math.sqrt(2.0 / (2 * cells))), new float[hidden],
+                gaussian(random, hidden, Math.sqrt(1.0 / hidden)), 0,
+                gaussian(random, cells * hidden, Math.sqrt(1.0 / hidden)), new float[cells]);
+    }
+
+    /**
+     * Загружает сеть из файла весов.
+     *
+     * @param file файл весов
+     * @return сеть
+     * @throws IOException при ошибке чтения или неверном формате
+     */
+    public static NeuralNet load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(Constants.NEURAL_NET_ERROR_LABEL + file);
+            int sizeX = in.readInt();
+            int sizeY = in.readInt();
+            int hidden = in.readInt();
+            if (sizeX <= 0 || sizeY <= 0 || hidden <= 0 || hidden > MAX_HIDDEN) {
+                throw new IOException(Constants.NEURAL_NET_ERROR_LABEL + file);
+            }
+            int cells;
+            int inputLength;
+            try {
+                cells = Math.multiplyExact(sizeX, sizeY);
+                inputLength = Math.multiplyExact(Math.multiplyExact(2, cells), hidden);
+            } catch (ArithmeticException e) {
+                throw new IOException(Constants.NEURAL_NET_ERROR_LABEL + file, e);
+            }
+            if (cells > ZobristHash.MAX_CELLS) throw new IOException(Constants.NEURAL_NET_ERROR_LABEL + file);
+            float[] inputWeights = readFloats(in, inputLength);
+            float[] hiddenBias = readFloats(in, hidden);
+            float[] valueWeights = readFloats(in, hidden);
+            float valueBias = in.readFloat();
+            float[] policyWeights = readFloats(in, cells * hidden);
+            float[] policyBias = readFloats(in, cells);
+            // Лишние байты после весов — файл другого формата или повреждён
+            if (in.read() != -1) throw new IOException(Constants.NEURAL_NET_ERROR_LABEL + file);
+            return new NeuralNet(sizeX, sizeY, hidden, inputWeights, hiddenBias, valueWeights, valueBias,
+                    policyWeights, policyBias);
+        }
+    }
+
+    /**
+     * Сохраняет сеть в файл весов.
+     *
+     * @param file файл весов
+     * @throws IOException при ошибке записи
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(sizeX);
+            out.writeInt(sizeY);
+            out.writeInt(hidden);
+            writeFloats(out, inputWeights);
+            writeFloats(out, hiddenBias);
+            writeFloats(out, valueWeights);
+            out.writeFloat(valueBias);
+            writeFloats(out, policyWeights);
+            writeFloats(out, policyBias);
+        }
+    }
+
+    /**
+     * Создаёт пакет для вычисления сети сразу на нескольких позициях.
+     *
+     * @param capacity наибольшее число позиций в пакете
+     * @return пакет с заранее выделенными буферами
+     */
+    public NetBatch newBatch(int capacity) {
+        return new NetBatch(this, capacity);
+    }
+
+    /**
+     * Проверяет, подходит ли сеть для поля.
+     *
+     * @param sizeX ширина поля
+     * @param sizeY высота поля
+     * @return {@code true} если размеры совпадают
+     */
+    public boolean fits(int sizeX, int sizeY) {
+        return this.sizeX == sizeX && this.sizeY == sizeY;
+    }
+
+    /**
+     * Возвращает ширину поля.
+     *
+     * @return ширина поля
+     */
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    /**
+     * Возвращает высоту поля.
+     *
+     * @return высота поля
+     */
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    /**
+     * Возвращает размер скрытого слоя.
+     *
+     * @return число нейронов
+     */
+    public int getHidden() {
+        return hidden;
+    }
+
+    /**
+     * Заполняет массив нормально распределёнными числами.
+     *
+     * @param random генератор случайных чисел
+     * @param length длина массива
+     * @param scale  стандартное отклонение
+     * @return массив
+     */
+    private static float[] gaussian(SplittableRandom random, int length, double scale) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            // Преобразование Бокса — Мюллера
+            double u = 1 - random.nextDouble();
+            double v = random.nextDouble();
+            values[i] = (float) (scale * Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v));
+        }
+        return values;
+    }
+
+    /**
+     * Читает массив float.
+     *
+     * @param in     поток чтения
+     * @param length длина массива
+     * @return массив
+     * @throws IOException при ошибке чтения
+     */
+    private static float[] readFloats(DataInputStream in, int length) throws IOException {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    /**
+     * Записывает массив float.
+     *
+     * @param out    поток записи
+     * @param values массив
+     * @throws IOException при ошибке записи
+     */
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ru.gb.jdk.one.online.ai;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Стратегия на нейросети {@link NeuralNet}: поиск на два полухода с оценкой всех листьев одним пакетом.
+ * <p>
+ * Сначала проверяются немедленный выигрыш и защита от выигрыша соперника. Затем по распределению
+ * ходов текущей позиции отбираются {@value #WIDTH} лучших ходов-кандидатов; для каждого из них
+ * в пакет {@link NetBatch} добавляются позиции после всех ответов соперника (с нашей точки зрения),
+ * и весь пакет листьев вычисляется за один проход (только оценки). Ход оценивается по худшему
+ * для нас ответу (минимакс) с добавкой взвешенной вероятности хода.
+ * Экземпляр не потокобезопасен (пакеты принадлежат стратегии одной игры).
+ * </p>
+ */
+public class NeuralStrategy implements MoveStrategy {
+
+    /** Число ходов, для которых перебираются ответы соперника */
+    private static final int WIDTH = 8;
+
+    /** Вес вероятности хода относительно оценки позиции */
+    private static final float POLICY_WEIGHT = 0.5f;
+
+    /** Сеть */
+    private final NeuralNet net;
+
+    /** Пакет листьев: позиции после каждого отобранного хода и каждого ответа на него */
+    private final NetBatch leaves;
+
+    /** Пакет текущей позиции для распределения ходов */
+    private final NetBatch root;
+
+    /** Клетки ходов-кандидатов */
+    private final int[] candidates;
+
+    /** Клетки ответов соперника */
+    private final int[] replies;
+
+    /** Клетки отобранных ходов */
+    private final int[] moves = new int[WIDTH];
+
+    /** Номер первого листа каждого отобранного хода в пакете (и конец последнего) */
+    private final int[] firstLeaf = new int[WIDTH + 1];
+
+    /** Поле построчно для отбора кандидатов */
+    private final int[] cells;
+
+    /**
+     * Конструктор.
+     *
+     * @param net сеть для поля, на котором будет идти игра
+     */
+    public NeuralStrategy(NeuralNet net) {
+        this.net = net;
+        int count = net.getSizeX() * net.getSizeY();
+        this.leaves = net.newBatch(WIDTH * count);
+        this.root = net.newBatch(1);
+        this.candidates = new int[count];
+        this.replies = new int[count];
+        this.cells = new int[count];
+    }
+
+    @Override
+    public Move chooseMove(int[][] field, int winLen, int dot) {
+        if (!net.fits(field[0].length, field.length)) {
+            throw new IllegalArgumentException(Constants.NEURAL_NET_ERROR_LABEL
+                    + field[0].length + "x" + field.length);
+        }
+        Move move = WinBlockStrategy.findWinMove(field, winLen, dot);
+        if (move != null) return move;
+        int opponent = GameRules.opponent(dot);
+        move = WinBlockStrategy.findWinMove(field, winLen, opponent);
+        if (move != null) return move;
+
+        int sizeX = field[0].length;
+        for (int y = 0; y < field.length; y++) {
+            System.arraycopy(field[y], 0, cells, y * sizeX, sizeX);
+        }
+        BoardGeometry geometry = BoardGeometry.of(sizeX, field.length, winLen);
+        int count = geometry.candidates(cells, candidates);
+        root.clear();
+        root.add(field, dot);
+        root.evaluate();
+        int width = selectMoves(count);
+
+        // Выигрышного ответа у соперника нет: его не было до нашего хода, а наш ход его не создаёт
+        leaves.clear();
+        for (int i = 0; i < width; i++) {
+            firstLeaf[i] = leaves.size();
+            int cell = moves[i];
+            cells[cell] = dot;
+            field[cell / sizeX][cell % sizeX] = dot;
+            int replyCount = geometry.candidates(cells, replies);
+            for (int r = 0; r < replyCount; r++) {
+                int reply = replies[r];
+                field[reply / sizeX][reply % sizeX] = opponent;
+                leaves.add(field, dot);
+                field[reply / sizeX][reply % sizeX] = Enums.Dot.EMPTY.getValue();
+            }
+            field[cell / sizeX][cell % sizeX] = Enums.Dot.EMPTY.getValue();
+            cells[cell] = Enums.Dot.EMPTY.getValue();
+        }
+        firstLeaf[width] = leaves.size();
+        leaves.evaluate(false);
+
+        int best = moves[0];
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < width; i++) {
+            // Ход, после которого поле заполнено, ведёт к ничьей
+            float value = firstLeaf[i] == firstLeaf[i + 1] ? 0 : Float.POSITIVE_INFINITY;
+            for (int leaf = firstLeaf[i]; leaf < firstLeaf[i + 1]; leaf++) {
+                value = Math.min(value, leaves.value(leaf));
+            }
+            float score = value + POLICY_WEIGHT * root.policy(0, moves[i]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves[i];
+            }
+        }
+        return new Move(best % sizeX, best / sizeX);
+    }
+
+    /**
+     * Отбирает в {@link #moves} кандидатов с наибольшей вероятностью хода в текущей позиции.
+     *
+     * @param count число кандидатов
+     * @return число отобранных ходов
+     */
+    private int selectMoves(int count) {
+        int width = 0;
+        for (int i = 0; i < count; i++) {
+            int cell = candidates[i];
+            float policy = root.policy(0, cell);
+            int pos = width < WIDTH ? width++ : WIDTH;
+            // Вставка в упорядоченный по убыванию вероятности список; худший выпадает за границу
+            while (pos > 0 && root.policy(0, moves[pos - 1]) < policy) {
+                if (pos < WIDTH) moves[pos] = moves[pos - 1];
+                pos--;
+            }
+            if (pos < WIDTH) moves[pos] = cell;
+        }
+        return width;
+    }
+}
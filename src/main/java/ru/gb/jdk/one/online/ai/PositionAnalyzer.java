@@ -0,0 +1,120 @@
+package ru.gb.jdk.one.online.ai;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Анализ позиции (оценка и проверка окончания игры) с кешированием по хешу позиции.
+ * <p>
+ * Стоит перед {@link LineEvaluator} (или векторным {@link LineScanner}, если он выбран
+ * в {@link LineScanners}) и проверкой победы: одинаковые позиции, возникающие
+ * в разных играх и потоках, анализируются один раз, дальше результат берётся из
+ * общего {@link EvaluationCache}. Экземпляр потокобезопасен: у каждого потока
+ * собственный оценщик.
+ * </p>
+ */
+public class PositionAnalyzer {
+
+    /** Кеш результатов анализа */
+    private final EvaluationCache cache;
+
+    /** Оценщик текущего потока (когда векторная реализация не выбрана) */
+    private final ThreadLocal<LineEvaluator> evaluators = new ThreadLocal<>();
+
+    /**
+     * Конструктор.
+     *
+     * @param cache кеш результатов анализа
+     */
+    public PositionAnalyzer(EvaluationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Анализирует позицию, вычисляя её хеш.
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @return результат анализа
+     */
+    public Evaluation analyze(int[][] field, int winLen) {
+        return analyze(field, winLen, ZobristHash.of(field, winLen));
+    }
+
+    /**
+     * Анализирует позицию с известным хешем.
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @param hash   хеш позиции ({@link ZobristHash})
+     * @return результат анализа
+     * @throws IllegalArgumentException если победные линии есть у обоих игроков
+     */
+    public Evaluation analyze(int[][] field, int winLen, long hash) {
+        Evaluation evaluation = cache.get(hash);
+        if (evaluation != null) return evaluation;
+
+        evaluation = compute(field, winLen);
+        cache.put(hash, evaluation);
+        return evaluation;
+    }
+
+    /**
+     * Анализирует позицию без обращения к кешу.
+     * <p>
+     * Игра заканчивается первой собранной линией, поэтому позиция с линиями обоих игроков
+     * недостижима; кто победил в ней, по самой позиции не определить.
+     * </p>
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @return результат анализа
+     * @throws IllegalArgumentException если победные линии есть у обоих игроков
+     */
+    private Evaluation compute(int[][] field, int winLen) {
+        int sizeX = field[0].length;
+        int sizeY = field.length;
+        int ai = Enums.Dot.AI.getValue();
+        int human = Enums.Dot.HUMAN.getValue();
+        boolean humanWin;
+        boolean aiWin;
+        long score;
+        LineScanner scanner = LineScanners.forBoard(sizeX, sizeY, winLen);
+        if (scanner != null) {
+            humanWin = scanner.hasWin(field, human);
+            aiWin = scanner.hasWin(field, ai);
+            score = scanner.score(field, ai);
+        } else {
+            LineEvaluator evaluator = evaluators.get();
+            if (evaluator == null || !evaluator.fits(sizeX, sizeY, winLen)) {
+                evaluator = new LineEvaluator(sizeX, sizeY, winLen);
+                evaluators.set(evaluator);
+            }
+            evaluator.load(field);
+            humanWin = evaluator.hasWin(human);
+            aiWin = evaluator.hasWin(ai);
+            score = evaluator.evaluate(ai);
+        }
+        if (humanWin && aiWin) throw new IllegalArgumentException(Constants.BOTH_SIDES_WIN_LABEL);
+
+        Enums.GameState state;
+        if (humanWin) {
+            state = Enums.GameState.WIN_HUMAN;
+        } else if (aiWin) {
+            state = Enums.GameState.WIN_AI;
+        } else if (GameRules.isFull(field)) {
+            state = Enums.GameState.DRAW;
+        } else {
+            state = Enums.GameState.GAME;
+        }
+        return new Evaluation(score, state);
+    }
+
+    /**
+     * Возвращает кеш результатов анализа.
+     *
+     * @return кеш
+     */
+    public EvaluationCache getCache() {
+        return cache;
+    }
+}
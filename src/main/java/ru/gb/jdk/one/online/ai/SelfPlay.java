@@ -0,0 +1,41 @@
+package ru.gb.jdk.one.online.ai;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Проведение игры между двумя стратегиями без интерфейса.
+ * <p>
+ * Первой ходит стратегия {@code first} за {@link Enums.Dot#HUMAN}, второй —
+ * {@code second} за {@link Enums.Dot#AI}.
+ * </p>
+ */
+public final class SelfPlay {
+
+    private SelfPlay() {
+    }
+
+    /**
+     * Играет одну партию до победы или ничьей.
+     *
+     * @param first  стратегия первого игрока
+     * @param second стратегия второго игрока
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     * @return итоговое состояние игры
+     */
+    public static Enums.GameState play(MoveStrategy first, MoveStrategy second, int sizeX, int sizeY, int winLen) {
+        int[][] field = new int[sizeY][sizeX];
+        int dot = Enums.Dot.HUMAN.getValue();
+        while (true) {
+            MoveStrategy strategy = dot == Enums.Dot.HUMAN.getValue() ? first : second;
+            Move move = strategy.chooseMove(GameRules.copyOf(field), winLen, dot);
+            field[move.y()][move.x()] = dot;
+            if (GameRules.isWinningMove(field, winLen, move.x(), move.y(), dot)) {
+                return dot == Enums.Dot.HUMAN.getValue() ? Enums.GameState.WIN_HUMAN : Enums.GameState.WIN_AI;
+            }
+            if (GameRules.isFull(field)) return Enums.GameState.DRAW;
+            dot = GameRules.opponent(dot);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Фабрика стандартных стратегий компьютера.
+ * <p>
+ * Стратегия создаётся заново для каждой игры с собственным генератором случайных чисел,
+ * инициализированным зерном игры. Одинаковое зерно и одинаковые ходы соперника дают
+ * одинаковые ходы компьютера, что позволяет воспроизвести партию ({@link GameReplay}).
+ * </p>
+ */
+public final class Strategies {
+
+    /** Анализатор позиций с общим для процесса кешем */
+    private static final PositionAnalyzer ANALYZER = new PositionAnalyzer(EvaluationCache.shared());
+
+    /** Нейросеть из файла, заданного системным свойством, или {@code null} */
+    private static NeuralNet net;
+
+    /** Была ли уже попытка загрузить нейросеть */
+    private static boolean netLoaded;
+
+    private Strategies() {
+    }
+
+    /**
+     * Создаёт стратегию компьютера по умолчанию для одной игры.
+     *
+     * @param seed зерно генератора случайных чисел игры
+     * @return новая стратегия
+     */
+    public static MoveStrategy standard(long seed) {
+        return new EndgameStrategy(new WinBlockStrategy(new SplittableRandom(seed)));
+    }
+
+    /**
+     * Создаёт стратегию компьютера для одной игры на поле заданного размера.
+     * <p>
+     * Если системное свойство {@link Constants#NEURAL_NET_PROPERTY} указывает на файл весов
+     * для поля этого размера, играет {@link NeuralStrategy}; иначе — {@link #standard(long)}.
+     * Файл читается при первом вызове; если его не удалось прочитать, выдаётся предупреждение
+     * и все игры процесса играет стандартная стратегия.
+     * </p>
+     *
+     * @param seed  зерно генератора случайных чисел игры
+     * @param sizeX ширина поля
+     * @param sizeY высота поля
+     * @return новая стратегия
+     */
+    public static MoveStrategy forBoard(long seed, int sizeX, int sizeY) {
+        NeuralNet net = net();
+        return net != null && net.fits(sizeX, sizeY) ? new NeuralStrategy(net) : standard(seed);
+    }
+
+    /**
+     * Возвращает общий для процесса анализатор позиций (состояние игры по всей позиции).
+     *
+     * @return анализатор позиций
+     */
+    public static PositionAnalyzer analyzer() {
+        return ANALYZER;
+    }
+
+    /**
+     * Возвращает нейросеть, при первом вызове загружая её из файла.
+     *
+     * @return сеть или {@code null}, если свойство не задано или файл не прочитан
+     */
+    private static synchronized NeuralNet net() {
+        if (!netLoaded) {
+            net = loadNet();
+            netLoaded = true;
+        }
+        return net;
+    }
+
+    /**
+     * Загружает нейросеть из файла, заданного системным свойством.
+     *
+     * @return сеть или {@code null}, если свойство не задано или файл не прочитан
+     */
+    private static NeuralNet loadNet() {
+        String file = System.getProperty(Constants.NEURAL_NET_PROPERTY);
+        if (file == null) return null;
+        try {
+            return NeuralNet.load(Path.of(file));
+        } catch (IOException | InvalidPathException e) {
+            System.getLogger(Strategies.class.getName()).log(System.Logger.Level.WARNING,
+                    Constants.NEURAL_NET_FALLBACK_LABEL + file, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Выгружает обучающие данные для {@link NeuralNet} из партий стратегии против самой себя.
+ * <p>
+ * Каждая позиция перед ходом записывается с точки зрения ходящего вместе со сделанным ходом
+ * (цель головы ходов) и итогом партии для ходящего (цель головы оценки). Формат (big-endian):
+ * заголовок — {@link #MAGIC}, ширина, высота и длина для победы (по байту); затем записи —
+ * клетки поля построчно (по байту: 0 — пусто, 1 — фишка ходящего, 2 — фишка соперника),
+ * индекс клетки хода (2 байта) и итог (байт со знаком: 1 — победа, 0 — ничья, −1 — поражение).
+ * Само обучение выполняется вне приложения; результат сохраняется в формате {@link NeuralNet#save}.
+ * </p>
+ */
+public final class TrainingDataExporter {
+
+    /** Сигнатура файла обучающих данных */
+    public static final int MAGIC = 0x54524E44;
+
+    private TrainingDataExporter() {
+    }
+
+    /**
+     * Играет партии и записывает их позиции.
+     *
+     * @param out    поток записи
+     * @param games  число партий
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     * @param seed   зерно первой партии (партия {@code i} играется с зерном {@code seed + i})
+     * @return число записанных позиций
+     * @throws IOException при ошибке записи
+     */
+    public static long export(DataOutputStream out, int games, int sizeX, int sizeY, int winLen, long seed)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(sizeX);
+        out.writeByte(sizeY);
+        out.writeByte(winLen);
+        int cells = sizeX * sizeY;
+        byte[][] boards = new byte[cells][cells];
+        int[] moves = new int[cells];
+        int[] movers = new int[cells];
+        long positions = 0;
+        for (int game = 0; game < games; game++) {
+            MoveStrategy strategy = Strategies.standard(seed + game);
+            int[][] field = new int[sizeY][sizeX];
+            int dot = Enums.Dot.HUMAN.getValue();
+            int winner = Enums.Dot.EMPTY.getValue();
+            int ply = 0;
+            while (true) {
+                encode(field, dot, boards[ply]);
+                Move move = strategy.chooseMove(GameRules.copyOf(field), winLen, dot);
+                field[move.y()][move.x()] = dot;
+                moves[ply] = move.y() * sizeX + move.x();
+                movers[ply] = dot;
+                ply++;
+                if (GameRules.isWinningMove(field, winLen, move.x(), move.y(), dot)) {
+                    winner = dot;
+                    break;
+                }
+                if (ply == cells) break;
+                dot = GameRules.opponent(dot);
+            }
+            for (int i = 0; i < ply; i++) {
+                out.write(boards[i]);
+                out.writeShort(moves[i]);
+                out.writeByte(winner == Enums.Dot.EMPTY.getValue() ? 0 : winner == movers[i] ? 1 : -1);
+            }
+            positions += ply;
+        }
+        return positions;
+    }
+
+    /**
+     * Кодирует поле с точки зрения ходящего.
+     *
+     * @param field игровое поле
+     * @param dot   значение ходящего игрока
+     * @param board массив для результата
+     */
+    private static void encode(int[][] field, int dot, byte[] board) {
+        Arrays.fill(board, (byte) 0);
+        int sizeX = field[0].length;
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                if (field[y][x] != Enums.Dot.EMPTY.getValue()) board[y * sizeX + x] = (byte) (field[y][x] == dot ? 1 : 2);
+            }
+        }
+    }
+
+    /**
+     * Выгружает обучающие данные в файл.
+     * <p>
+     * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.ai.TrainingDataExporter out.bin [games] [size] [winLen]}.
+     * </p>
+     *
+     * @param args файл, число партий, размер поля и длина для победы
+     * @throws IOException при ошибке записи
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : "training.bin");
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : Constants.FIELD_SIZE_MAX;
+        int winLen = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            long positions = export(out, games, size, size, winLen, 1);
+            System.out.printf("%,d games, %,d positions -> %s%n", games, positions, file);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ru.gb.jdk.one.online.ai;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Реализация {@link LineScanner} на Vector API ({@code jdk.incubator.vector}).
+ * <p>
+ * Поле упаковывается построчно в байтовые маски игроков с шагом строки
+ * {@code stride = sizeX + winLen - 1}: справа от каждой строки остаются нулевые клетки,
+ * поэтому сдвиг на {@code k * d} (d = 1, stride, stride + 1, stride - 1 для четырёх направлений)
+ * никогда не «перетекает» на соседнюю строку. Затем за одну векторную операцию
+ * проверяются все окна, начинающиеся в {@link #SPECIES} соседних клетках.
+ * </p>
+ * <p>
+ * Класс можно загружать только при наличии модуля {@code jdk.incubator.vector}
+ * (флаг {@code --add-modules jdk.incubator.vector}); проверку и выбор выполняет {@link LineScanners}.
+ * </p>
+ */
+public class VectorLineScanner implements LineScanner {
+
+    /** Предпочтительная для процессора длина байтового вектора */
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    /** Ширина поля */
+    private final int sizeX;
+
+    /** Высота поля */
+    private final int sizeY;
+
+    /** Длина победной последовательности */
+    private final int winLen;
+
+    /** Шаг строки в упакованной маске */
+    private final int stride;
+
+    /** Число клеток упакованной маски, с которых может начинаться окно */
+    private final int boardLength;
+
+    /** Длина упакованной маски с запасом для чтения за последней строкой */
+    private final int maskLength;
+
+    /** Смещения четырёх направлений в упакованной маске */
+    private final int[] offsets;
+
+    /** Для каждого направления: 1 в клетках, с которых начинается окно, целиком лежащее на поле */
+    private final byte[][] validStarts;
+
+    /** Оценка окна компьютера с {@code c} фишками (индекс — {@code c}) */
+    private final int[] aiWeights;
+
+    /** Оценка окна человека с {@code c} фишками (индекс — {@code c}) */
+    private final int[] humanWeights;
+
+    /**
+     * Конструктор.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     */
+    public VectorLineScanner(int sizeX, int sizeY, int winLen) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.winLen = winLen;
+        this.stride = sizeX + winLen - 1;
+        this.boardLength = sizeY * stride;
+        this.maskLength = boardLength + SPECIES.length() + (winLen - 1) * (stride + 1);
+        this.offsets = new int[]{1, stride, stride + 1, stride - 1};
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}};
+
+        validStarts = new byte[offsets.length][boardLength + SPECIES.length()];
+        for (int d = 0; d < offsets.length; d++) {
+            for (int y = 0; y < sizeY; y++) {
+                for (int x = 0; x < sizeX; x++) {
+                    int endX = x + (winLen - 1) * directions[d][0];
+                    int endY = y + (winLen - 1) * directions[d][1];
+                    if (endX >= 0 && endX < sizeX && endY < sizeY) validStarts[d][y * stride + x] = 1;
+                }
+            }
+        }
+
+        aiWeights = new int[winLen + 1];
+        humanWeights = new int[winLen + 1];
+        for (int c = 1; c <= winLen; c++) {
+            aiWeights[c] = LineEvaluator.windowScore(c, 0, winLen);
+            humanWeights[c] = LineEvaluator.windowScore(0, c, winLen);
+        }
+    }
+
+    @Override
+    public boolean hasWin(int[][] field, int dot) {
+        byte[] mask = pack(field, dot);
+        for (int offset : offsets) {
+            for (int i = 0; i < boardLength; i += SPECIES.length()) {
+                ByteVector acc = ByteVector.fromArray(SPECIES, mask, i);
+                for (int k = 1; k < winLen; k++) {
+                    acc = acc.and(ByteVector.fromArray(SPECIES, mask, i + k * offset));
+                }
+                if (acc.compare(VectorOperators.NE, 0).anyTrue()) return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long score(int[][] field, int dot) {
+        byte[] ai = pack(field, Enums.Dot.AI.getValue());
+        byte[] human = pack(field, Enums.Dot.HUMAN.getValue());
+        long sum = 0;
+        for (int d = 0; d < offsets.length; d++) {
+            int offset = offsets[d];
+            for (int i = 0; i < boardLength; i += SPECIES.length()) {
+                ByteVector aiCount = ByteVector.fromArray(SPECIES, ai, i);
+                ByteVector humanCount = ByteVector.fromArray(SPECIES, human, i);
+                for (int k = 1; k < winLen; k++) {
+                    aiCount = aiCount.add(ByteVector.fromArray(SPECIES, ai, i + k * offset));
+                    humanCount = humanCount.add(ByteVector.fromArray(SPECIES, human, i + k * offset));
+                }
+                VectorMask<Byte> valid = ByteVector.fromArray(SPECIES, validStarts[d], i).compare(VectorOperators.NE, 0);
+                VectorMask<Byte> aiOnly = valid.and(humanCount.compare(VectorOperators.EQ, 0));
+                VectorMask<Byte> humanOnly = valid.and(aiCount.compare(VectorOperators.EQ, 0));
+                for (int c = 1; c <= winLen; c++) {
+                    sum += (long) aiWeights[c] * aiOnly.and(aiCount.compare(VectorOperators.EQ, c)).trueCount();
+                    sum += (long) humanWeights[c] * humanOnly.and(humanCount.compare(VectorOperators.EQ, c)).trueCount();
+                }
+            }
+        }
+        return dot == Enums.Dot.AI.getValue() ? sum : -sum;
+    }
+
+    /**
+     * Упаковывает клетки игрока в байтовую маску с нулевыми полями справа и снизу.
+     *
+     * @param field игровое поле
+     * @param dot   значение игрока
+     * @return маска: 1 — клетка игрока, 0 — иначе
+     */
+    private byte[] pack(int[][] field, int dot) {
+        byte[] mask = new byte[maskLength];
+        for (int y = 0; y < sizeY; y++) {
+            int row = y * stride;
+            for (int x = 0; x < sizeX; x++) {
+                if (field[y][x] == dot) mask[row + x] = 1;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.random.RandomGenerator;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Простейшая стратегия: выиграть, если можно; иначе заблокировать победу соперника;
+ * иначе сходить в случайную пустую ячейку.
+ */
+public class WinBlockStrategy implements MoveStrategy {
+
+    /** Генератор случайных чисел для случайного хода (принадлежит одной игре) */
+    private final RandomGenerator random;
+
+    /**
+     * Конструктор.
+     *
+     * @param random генератор случайных чисел
+     */
+    public WinBlockStrategy(RandomGenerator random) {
+        this.random = random;
+    }
+
+    @Override
+    public Move chooseMove(int[][] field, int winLen, int dot) {
+        Move move = findWinMove(field, winLen, dot);
+        if (move != null) return move;
+        move = findWinMove(field, winLen, GameRules.opponent(dot));
+        if (move != null) return move;
+
+        int sizeY = field.length;
+        int sizeX = field[0].length;
+        int x, y;
+        do {
+            x = random.nextInt(sizeX);
+            y = random.nextInt(sizeY);
+        } while (field[y][x] != Enums.Dot.EMPTY.getValue());
+        return new Move(x, y);
+    }
+
+    /**
+     * Ищет ход, которым игрок сразу выигрывает.
+     * <p>
+     * Для каждой пустой клетки просматриваются только линии через неё ({@link BoardGeometry#winsAt}):
+     * это дешевле анализа всей позиции даже при попадании в кеш {@link PositionAnalyzer}.
+     * </p>
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @param dot    значение игрока
+     * @return выигрышный ход или {@code null}, если его нет
+     */
+    public static Move findWinMove(int[][] field, int winLen, int dot) {
+        int sizeX = field[0].length;
+        BoardGeometry geometry = BoardGeometry.of(sizeX, field.length, winLen);
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                if (field[y][x] != Enums.Dot.EMPTY.getValue()) continue;
+                field[y][x] = dot;
+                boolean win = geometry.winsAt(field, x, y, dot);
+                field[y][x] = Enums.Dot.EMPTY.getValue();
+                if (win) return new Move(x, y);
+            }
+        }
+        return null;
+    }
+}
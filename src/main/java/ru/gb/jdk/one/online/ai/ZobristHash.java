@@ -0,0 +1,96 @@
+package ru.gb.jdk.one.online.ai;
+
+import java.util.SplittableRandom;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Хеширование позиций по схеме Зобриста.
+ * <p>
+ * Каждой паре (ячейка, игрок) сопоставлено фиксированное случайное 64-битное число,
+ * хеш позиции — XOR чисел всех занятых ячеек, смешанный с параметрами поля.
+ * Ключи генерируются из постоянного зерна, поэтому одна и та же позиция получает
+ * одинаковый хеш в любой игре, в любом потоке и при любом запуске.
+ * Ход обновляет хеш за O(1) через {@link #toggle}.
+ * </p>
+ */
+public final class ZobristHash {
+
+    /** Максимальное число ячеек поля, для которого есть ключи */
+    public static final int MAX_CELLS = 32 * 32;
+
+    /** Зерно генератора ключей */
+    private static final long SEED = 0x5EED_7AC7_0E5L;
+
+    /** Ключи: индекс {@code cell * 3 + dot} */
+    private static final long[] KEYS = new long[MAX_CELLS * 3];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = random.nextLong();
+        }
+    }
+
+    private ZobristHash() {
+    }
+
+    /**
+     * Вычисляет хеш позиции целиком.
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @return хеш позиции
+     */
+    public static long of(int[][] field, int winLen) {
+        int sizeX = field[0].length;
+        long hash = salt(sizeX, field.length, winLen);
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                int dot = field[y][x];
+                if (dot != Enums.Dot.EMPTY.getValue()) hash ^= key(y * sizeX + x, dot);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Добавляет или убирает фишку игрока в ячейке (операция обратима).
+     *
+     * @param hash  хеш позиции
+     * @param sizeX ширина поля
+     * @param x     координата X
+     * @param y     координата Y
+     * @param dot   значение игрока
+     * @return хеш новой позиции
+     */
+    public static long toggle(long hash, int sizeX, int x, int y, int dot) {
+        return hash ^ key(y * sizeX + x, dot);
+    }
+
+    /**
+     * Возвращает ключ пары (ячейка, игрок).
+     *
+     * @param cell индекс ячейки {@code y * sizeX + x}
+     * @param dot  значение игрока
+     * @return ключ
+     */
+    public static long key(int cell, int dot) {
+        return KEYS[cell * 3 + dot];
+    }
+
+    /**
+     * Смешивает параметры поля, чтобы одинаковые расстановки на разных полях не совпадали.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     * @return начальное значение хеша пустого поля
+     */
+    public static long salt(int sizeX, int sizeY, int winLen) {
+        long z = ((long) sizeX << 32 | (long) sizeY << 16 | winLen) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Сравнивает перезапуск {@link LiveAnalysis} после хода с анализом каждой позиции с нуля.
+ * <p>
+ * Позиции берутся из партии стандартной стратегии против самой себя. На каждую позицию
+ * анализ получает одинаковое время; печатаются средняя глубина, на которой оценены все
+ * кандидаты, время до первой полной подсветки (включая прерывание поиска прежней позиции),
+ * время до глубины {@value #TARGET_DEPTH} и число различных результатов, увиденных опросом раз в миллисекунду.
+ * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.bench.AnalysisBenchmark [millis] [size] [winLen]}.
+ * </p>
+ */
+public class AnalysisBenchmark {
+
+    /** Период опроса результатов, мс */
+    private static final int POLL_MILLIS = 1;
+
+    /** Глубина, время достижения которой замеряется */
+    private static final int TARGET_DEPTH = 3;
+
+    /**
+     * Точка входа.
+     *
+     * @param args время анализа позиции в мс, размер поля и длина для победы
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int millis = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : Constants.FIELD_SIZE_MAX;
+        int winLen = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        List<int[][]> positions = positions(size, winLen);
+
+        for (int round = 0; round < 2; round++) {
+            try (LiveAnalysis shared = new LiveAnalysis()) {
+                report("incremental", positions, winLen, millis, shared);
+            }
+            report("from scratch", positions, winLen, millis, null);
+        }
+    }
+
+    /**
+     * Анализирует позиции по очереди и печатает средние показатели.
+     *
+     * @param name      название режима
+     * @param positions позиции партии по порядку
+     * @param winLen    длина для победы
+     * @param millis    время анализа позиции
+     * @param shared    общий анализ или {@code null}, чтобы создавать новый на каждую позицию
+     */
+    private static void report(String name, List<int[][]> positions, int winLen, int millis, LiveAnalysis shared)
+            throws InterruptedException {
+        long depthSum = 0;
+        long firstFullSum = 0;
+        long targetSum = 0;
+        long seen = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            LiveAnalysis analysis = shared != null ? shared : new LiveAnalysis();
+            int dot = i % 2 == 0 ? Enums.Dot.HUMAN.getValue() : Enums.Dot.AI.getValue();
+            long start = System.nanoTime();
+            analysis.analyze(positions.get(i), winLen, dot);
+            long firstFull = -1;
+            long target = -1;
+            LiveAnalysis.Snapshot last = null;
+            while (System.nanoTime() - start < millis * 1_000_000L) {
+                Thread.sleep(POLL_MILLIS);
+                LiveAnalysis.Snapshot snapshot = analysis.latest();
+                if (snapshot == null || snapshot == last) continue;
+                last = snapshot;
+                seen++;
+                if (firstFull < 0 && snapshot.depth() > 0) firstFull = System.nanoTime() - start;
+                if (target < 0 && snapshot.depth() >= TARGET_DEPTH) target = System.nanoTime() - start;
+                if (snapshot.complete()) break;
+            }
+            depthSum += last == null ? 0 : last.depth();
+            firstFullSum += firstFull < 0 ? millis * 1_000_000L : firstFull;
+            targetSum += target < 0 ? millis * 1_000_000L : target;
+            if (shared == null) analysis.close();
+        }
+        int n = positions.size();
+        System.out.printf("%-12s %d positions: depth %.2f, first heatmap %.2f ms, depth %d in %.2f ms, %.1f snapshots/position%n",
+                name, n, depthSum / (double) n, firstFullSum / 1e6 / n, TARGET_DEPTH, targetSum / 1e6 / n, seen / (double) n);
+    }
+
+    /**
+     * Играет партию стандартной стратегии против самой себя и собирает позиции перед каждым ходом.
+     *
+     * @param size   размер поля
+     * @param winLen длина для победы
+     * @return позиции
+     */
+    private static List<int[][]> positions(int size, int winLen) {
+        MoveStrategy strategy = Strategies.standard(1);
+        int[][] field = new int[size][size];
+        List<int[][]> positions = new ArrayList<>();
+        int dot = Enums.Dot.HUMAN.getValue();
+        while (!GameRules.isFull(field)) {
+            positions.add(GameRules.copyOf(field));
+            Move move = strategy.chooseMove(GameRules.copyOf(field), winLen, dot);
+            field[move.y()][move.x()] = dot;
+            if (GameRules.isWinningMove(field, winLen, move.x(), move.y(), dot)) break;
+            dot = GameRules.opponent(dot);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,108 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Нагрузочный тест общего кеша {@link EvaluationCache}: несколько потоков параллельно
+ * играют партии {@link WinBlockStrategy} против самой себя и после каждого хода анализируют
+ * всю позицию, как это делает игровое поле, — через {@link PositionAnalyzer} и без кеша.
+ * <p>
+ * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.bench.CacheBenchmark [threads] [games] [size] [winLen]}.
+ * </p>
+ */
+public class CacheBenchmark {
+
+    /**
+     * Точка входа.
+     *
+     * @param args число потоков, партий на поток, размер поля и длина для победы
+     * @throws Exception если поток самоигры завершился с ошибкой
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 7;
+        int winLen = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        EvaluationCache cache = new EvaluationCache(1 << 20);
+        PositionAnalyzer analyzer = new PositionAnalyzer(cache);
+        for (int round = 0; round < 3; round++) {
+            double plain = run(threads, games, size, winLen, null);
+            cache.resetStats();
+            double cached = run(threads, games, size, winLen, analyzer);
+            System.out.printf("round %d: no cache %,.0f games/s, cache %,.0f games/s, hit ratio %.3f, evictions %,d%n",
+                    round, plain, cached, cache.hitRatio(), cache.getEvictions());
+        }
+    }
+
+    /**
+     * Проводит партии во всех потоках.
+     *
+     * @param threads  число потоков
+     * @param games    число партий на поток
+     * @param size     размер поля
+     * @param winLen   длина для победы
+     * @param analyzer кеширующий анализатор или {@code null}
+     * @return пропускная способность, партий в секунду
+     * @throws Exception если поток самоигры завершился с ошибкой
+     */
+    private static double run(int threads, int games, int size, int winLen, PositionAnalyzer analyzer)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                futures[t] = executor.submit(() -> {
+                    // Одинаковые зёрна в обоих прогонах: партии совпадают, различается только кеш
+                    WinBlockStrategy strategy = new WinBlockStrategy(new SplittableRandom(seed));
+                    LineEvaluator evaluator = new LineEvaluator(size, size, winLen);
+                    for (int g = 0; g < games; g++) {
+                        play(strategy, size, winLen, analyzer, evaluator);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return (double) threads * games * 1e9 / (System.nanoTime() - start);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Играет партию, определяя её окончание анализом всей позиции после каждого хода.
+     *
+     * @param strategy  стратегия обоих игроков
+     * @param size      размер поля
+     * @param winLen    длина для победы
+     * @param analyzer  кеширующий анализатор или {@code null}
+     * @param evaluator оценщик для анализа без кеша
+     */
+    private static void play(MoveStrategy strategy, int size, int winLen, PositionAnalyzer analyzer,
+                             LineEvaluator evaluator) {
+        int[][] field = new int[size][size];
+        int dot = Enums.Dot.HUMAN.getValue();
+        while (true) {
+            Move move = strategy.chooseMove(GameRules.copyOf(field), winLen, dot);
+            field[move.y()][move.x()] = dot;
+            boolean win;
+            if (analyzer != null) {
+                win = analyzer.analyze(field, winLen).isWin(dot);
+            } else {
+                evaluator.load(field);
+                win = evaluator.hasWin(dot);
+            }
+            if (win || GameRules.isFull(field)) return;
+            dot = GameRules.opponent(dot);
+        }
+    }
+}
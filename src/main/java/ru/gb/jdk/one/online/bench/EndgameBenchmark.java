@@ -0,0 +1,76 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.util.SplittableRandom;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Измеряет время точного решения {@link EndgameSolver} в зависимости от числа пустых ячеек.
+ * <p>
+ * Для каждого числа пустых ячеек генерируются случайные незавершённые позиции
+ * и решаются новым решателем (без накопленной таблицы транспозиций).
+ * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.bench.EndgameBenchmark [size] [winLen] [maxEmpty]}.
+ * </p>
+ */
+public class EndgameBenchmark {
+
+    /** Число позиций на каждое число пустых ячеек */
+    private static final int SAMPLES = 20;
+
+    /**
+     * Точка входа.
+     *
+     * @param args размер поля, длина для победы и максимальное число пустых ячеек
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int winLen = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int maxEmpty = args.length > 2 ? Integer.parseInt(args[2]) : Constants.ENDGAME_EMPTY_CELLS + 8;
+        SplittableRandom random = new SplittableRandom(size * 31L + winLen);
+
+        for (int empty = 4; empty <= maxEmpty; empty++) {
+            long nanos = 0;
+            long nodes = 0;
+            for (int i = 0; i < SAMPLES; i++) {
+                int[][] field = randomPosition(random, size, winLen, empty);
+                long start = System.nanoTime();
+                // Первым ходит человек, поэтому при чётном числе фишек снова его ход
+                int dot = (size * size - empty) % 2 == 0 ? Enums.Dot.HUMAN.getValue() : Enums.Dot.AI.getValue();
+                EndgameSolver.Result result = new EndgameSolver().solve(field, winLen, dot);
+                nanos += System.nanoTime() - start;
+                nodes += result.nodes();
+            }
+            System.out.printf("empty %2d: %8.3f ms/solve, %,12d nodes/solve%n",
+                    empty, nanos / 1e6 / SAMPLES, nodes / SAMPLES);
+        }
+    }
+
+    /**
+     * Генерирует случайную незавершённую позицию с заданным числом пустых ячеек.
+     *
+     * @param random генератор случайных чисел
+     * @param size   размер поля
+     * @param winLen длина для победы
+     * @param empty  число пустых ячеек
+     * @return позиция
+     */
+    private static int[][] randomPosition(SplittableRandom random, int size, int winLen, int empty) {
+        while (true) {
+            int[][] field = new int[size][size];
+            int dot = Enums.Dot.HUMAN.getValue();
+            boolean finished = false;
+            for (int placed = 0; placed < size * size - empty && !finished; placed++) {
+                int x, y;
+                do {
+                    x = random.nextInt(size);
+                    y = random.nextInt(size);
+                } while (field[y][x] != Enums.Dot.EMPTY.getValue());
+                field[y][x] = dot;
+                finished = GameRules.isWinningMove(field, winLen, x, y, dot);
+                dot = GameRules.opponent(dot);
+            }
+            if (!finished) return field;
+        }
+    }
+}
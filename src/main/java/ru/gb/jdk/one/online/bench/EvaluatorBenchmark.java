@@ -0,0 +1,134 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.util.SplittableRandom;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Сравнивает скорость инкрементальной табличной оценки {@link LineEvaluator}
+ * с полным перебором окон {@link LineEvaluator#evaluateNaive}.
+ * <p>
+ * Измеряется типичный для поиска сценарий: сделать ход, оценить позицию, отменить ход.
+ * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.bench.EvaluatorBenchmark [size] [winLen]}.
+ * </p>
+ */
+public class EvaluatorBenchmark {
+
+    /** Количество случайных позиций */
+    private static final int POSITIONS = 64;
+
+    /** Число раундов измерения */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Точка входа.
+     *
+     * @param args размер поля и длина для победы (по умолчанию 10 и 5)
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int winLen = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int[][][] positions = randomPositions(size, winLen);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long naive = runNaive(positions, winLen);
+            long naiveNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long incremental = runIncremental(positions, size, winLen);
+            long incrementalNanos = System.nanoTime() - start;
+
+            if (naive != incremental) {
+                throw new IllegalStateException("Оценки не совпадают: " + naive + " != " + incremental);
+            }
+            long evaluations = countEmpty(positions);
+            System.out.printf("round %d: naive %,.0f eval/s, incremental %,.0f eval/s%n", round,
+                    evaluations * 1e9 / naiveNanos, evaluations * 1e9 / incrementalNanos);
+        }
+    }
+
+    /**
+     * Оценивает каждый возможный ход полным перебором окон.
+     *
+     * @param positions позиции
+     * @param winLen    длина для победы
+     * @return сумма оценок (для сверки и против удаления кода JIT-компилятором)
+     */
+    private static long runNaive(int[][][] positions, int winLen) {
+        long sum = 0;
+        for (int[][] field : positions) {
+            for (int y = 0; y < field.length; y++) {
+                for (int x = 0; x < field[y].length; x++) {
+                    if (field[y][x] != Enums.Dot.EMPTY.getValue()) continue;
+                    field[y][x] = Enums.Dot.AI.getValue();
+                    sum += LineEvaluator.evaluateNaive(field, winLen, Enums.Dot.AI.getValue());
+                    field[y][x] = Enums.Dot.EMPTY.getValue();
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Оценивает каждый возможный ход инкрементально.
+     *
+     * @param positions позиции
+     * @param size      размер поля
+     * @param winLen    длина для победы
+     * @return сумма оценок
+     */
+    private static long runIncremental(int[][][] positions, int size, int winLen) {
+        LineEvaluator evaluator = new LineEvaluator(size, size, winLen);
+        long sum = 0;
+        for (int[][] field : positions) {
+            evaluator.load(field);
+            for (int y = 0; y < field.length; y++) {
+                for (int x = 0; x < field[y].length; x++) {
+                    if (field[y][x] != Enums.Dot.EMPTY.getValue()) continue;
+                    evaluator.place(x, y, Enums.Dot.AI.getValue());
+                    sum += evaluator.evaluate(Enums.Dot.AI.getValue());
+                    evaluator.remove(x, y, Enums.Dot.AI.getValue());
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Генерирует случайные позиции, заполненные примерно на треть.
+     *
+     * @param size   размер поля
+     * @param winLen длина для победы
+     * @return позиции
+     */
+    private static int[][][] randomPositions(int size, int winLen) {
+        SplittableRandom random = new SplittableRandom(winLen);
+        int[][][] positions = new int[POSITIONS][size][size];
+        for (int[][] field : positions) {
+            for (int i = 0; i < size * size / 3; i++) {
+                field[random.nextInt(size)][random.nextInt(size)] = 1 + random.nextInt(2);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Считает количество оценок в одном раунде.
+     *
+     * @param positions позиции
+     * @return число пустых ячеек во всех позициях
+     */
+    private static long countEmpty(int[][][] positions) {
+        long count = 0;
+        for (int[][] field : positions) {
+            for (int[] row : field) {
+                for (int cell : row) {
+                    if (cell == Enums.Dot.EMPTY.getValue()) count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.util.SplittableRandom;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Показывает выигрыш от общей {@link BoardGeometry}.
+ * <p>
+ * Время: проверка окончания игры после хода полным просмотром поля
+ * ({@link GameRules#checkWin}) против просмотра только линий через клетку хода
+ * ({@link GameRules#isWinningMove}). Память: сколько занимали бы собственные таблицы
+ * линий в каждой игре и сколько занимает одна общая геометрия плюс коды окон игры.
+ * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.bench.GeometryBenchmark [size] [winLen] [games]}.
+ * </p>
+ */
+public class GeometryBenchmark {
+
+    /** Число партий в одном замере */
+    private static final int GAMES = 2_000;
+
+    /**
+     * Точка входа.
+     *
+     * @param args размер поля, длина для победы и число одновременных игр для оценки памяти
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : Constants.FIELD_SIZE_MAX;
+        int winLen = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long games = args.length > 2 ? Long.parseLong(args[2]) : 100_000;
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            long moves = playRandomGames(size, winLen, false);
+            long fullNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            long movesAt = playRandomGames(size, winLen, true);
+            long atNanos = System.nanoTime() - start;
+            if (moves != movesAt) throw new IllegalStateException("Проверки разошлись: " + moves + " != " + movesAt);
+            System.out.printf("round %d: full-board check %,.1f ns/move, lines through cell %,.1f ns/move%n",
+                    round, (double) fullNanos / moves, (double) atNanos / movesAt);
+        }
+
+        BoardGeometry geometry = BoardGeometry.of(size, size, winLen);
+        long shared = geometry.byteSize();
+        long codes = (long) Integer.BYTES * geometry.getLineCount();
+        // Без общей геометрии каждая игра держит CSR-индекс (начала, окна, веса) и коды окон
+        long perGame = (long) Integer.BYTES * (size * size + 1 + 2L * geometry.getLineCount() * winLen) + codes;
+        System.out.printf("%,d games: per-game tables %,d KB, shared geometry %,d KB + codes %,d KB%n",
+                games, perGame * games >> 10, shared >> 10, codes * games >> 10);
+    }
+
+    /**
+     * Играет случайные партии, проверяя окончание игры после каждого хода.
+     *
+     * @param size    размер поля
+     * @param winLen  длина для победы
+     * @param atCell  проверять только линии через клетку хода
+     * @return число сделанных ходов
+     */
+    private static long playRandomGames(int size, int winLen, boolean atCell) {
+        SplittableRandom random = new SplittableRandom(size);
+        long moves = 0;
+        for (int g = 0; g < GAMES; g++) {
+            int[][] field = new int[size][size];
+            int dot = Enums.Dot.HUMAN.getValue();
+            for (int empty = size * size; empty > 0; empty--) {
+                int x, y;
+                do {
+                    x = random.nextInt(size);
+                    y = random.nextInt(size);
+                } while (field[y][x] != Enums.Dot.EMPTY.getValue());
+                field[y][x] = dot;
+                moves++;
+                boolean win = atCell
+                        ? GameRules.isWinningMove(field, winLen, x, y, dot)
+                        : GameRules.checkWin(field, winLen, dot);
+                if (win) break;
+                dot = GameRules.opponent(dot);
+            }
+        }
+        return moves;
+    }
+}
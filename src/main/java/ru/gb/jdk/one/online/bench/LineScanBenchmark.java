@@ -0,0 +1,101 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.util.SplittableRandom;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Сравнивает скалярный {@link LineEvaluator} (загрузка поля и проверка или оценка) с векторным
+ * {@link LineScanner} на проверке победы и оценке окон для полей от 3×3 до 19×19
+ * и сверяет их результаты. По этим замерам выбирается порог размера поля в {@link LineScanners}.
+ * <p>
+ * Запуск: {@code java --add-modules jdk.incubator.vector -cp target/classes
+ * ru.gb.jdk.one.online.bench.LineScanBenchmark [winLen]}. Без флага замеряется только скалярный оценщик.
+ * </p>
+ */
+public class LineScanBenchmark {
+
+    /** Количество случайных позиций */
+    private static final int POSITIONS = 256;
+
+    /** Число проходов по позициям в одном замере */
+    private static final int ITERATIONS = 200;
+
+    /**
+     * Точка входа.
+     *
+     * @param args длина для победы (по умолчанию 5)
+     */
+    public static void main(String[] args) {
+        int winLen = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int ai = Enums.Dot.AI.getValue();
+        for (int size : new int[]{3, 5, 7, 10, 15, 19}) {
+            int len = Math.min(winLen, size);
+            int[][][] positions = randomPositions(size);
+            LineEvaluator evaluator = new LineEvaluator(size, size, len);
+            LineScanner scanner = LineScanners.isVectorAvailable() ? LineScanners.vector(size, size, len) : null;
+            long[] expected = null;
+            for (int kind = 0; kind < (scanner == null ? 1 : 2); kind++) {
+                long wins = 0, score = 0;
+                long winNanos = Long.MAX_VALUE, scoreNanos = Long.MAX_VALUE;
+                for (int round = 0; round < 10; round++) {
+                    long start = System.nanoTime();
+                    wins = 0;
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        for (int[][] field : positions) {
+                            boolean win;
+                            if (kind == 0) {
+                                evaluator.load(field);
+                                win = evaluator.hasWin(ai);
+                            } else {
+                                win = scanner.hasWin(field, ai);
+                            }
+                            if (win) wins++;
+                        }
+                    }
+                    winNanos = Math.min(winNanos, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    score = 0;
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        for (int[][] field : positions) {
+                            if (kind == 0) {
+                                evaluator.load(field);
+                                score += evaluator.evaluate(ai);
+                            } else {
+                                score += scanner.score(field, ai);
+                            }
+                        }
+                    }
+                    scoreNanos = Math.min(scoreNanos, System.nanoTime() - start);
+                }
+                if (expected != null && (wins != expected[0] || score != expected[1])) {
+                    throw new IllegalStateException("Результаты векторной реализации не совпадают со скалярной");
+                }
+                expected = new long[]{wins, score};
+                double calls = (double) ITERATIONS * POSITIONS;
+                System.out.printf("%dx%d %-9s hasWin %8.1f ns/op, score %8.1f ns/op%n",
+                        size, size, kind == 0 ? LineScanners.SCALAR : LineScanners.VECTOR,
+                        winNanos / calls, scoreNanos / calls);
+            }
+        }
+    }
+
+    /**
+     * Генерирует случайные позиции, заполненные примерно на четверть.
+     *
+     * @param size размер поля
+     * @return позиции
+     */
+    private static int[][][] randomPositions(int size) {
+        SplittableRandom random = new SplittableRandom(size);
+        int[][][] positions = new int[POSITIONS][size][size];
+        for (int[][] field : positions) {
+            for (int i = 0; i < size * size / 4; i++) {
+                field[random.nextInt(size)][random.nextInt(size)] = 1 + random.nextInt(2);
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Сравнивает вычисление {@link NeuralNet} по одной позиции и пакетами {@link NetBatch}.
+ * <p>
+ * Печатает число позиций в секунду для пакетов разного размера, время хода {@link NeuralStrategy}
+ * и объём памяти, выделенной потоком за замер (буферы пакета переиспользуются, поэтому он близок к нулю).
+ * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.bench.NeuralNetBenchmark [hidden]}.
+ * </p>
+ */
+public class NeuralNetBenchmark {
+
+    /** Размер поля */
+    private static final int SIZE = Constants.FIELD_SIZE_MAX;
+
+    /** Длина для победы */
+    private static final int WIN_LEN = 5;
+
+    /** Число позиций в одном замере */
+    private static final int POSITIONS = 200_000;
+
+    /**
+     * Точка входа.
+     *
+     * @param args размер скрытого слоя
+     */
+    public static void main(String[] args) {
+        int hidden = args.length > 0 ? Integer.parseInt(args[0]) : 128;
+        NeuralNet net = NeuralNet.random(SIZE, SIZE, hidden, 1);
+        int[][][] positions = positions(1024);
+
+        for (int round = 0; round < 3; round++) {
+            for (int batchSize : new int[]{1, 8, 32, 101}) {
+                NetBatch batch = net.newBatch(batchSize);
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                float sink = 0;
+                for (int i = 0; i < POSITIONS; i += batchSize) {
+                    batch.clear();
+                    for (int b = 0; b < batchSize; b++) {
+                        batch.add(positions[(i + b) & 1023], Enums.Dot.AI.getValue());
+                    }
+                    batch.evaluate();
+                    sink += batch.value(0);
+                }
+                long nanos = System.nanoTime() - start;
+                System.out.printf("round %d, batch %3d: %,.0f positions/s, allocated %,d bytes%s%n", round, batchSize,
+                        POSITIONS * 1e9 / nanos, allocatedBytes() - allocated, sink == Float.MAX_VALUE ? "!" : "");
+            }
+        }
+
+        NeuralStrategy strategy = new NeuralStrategy(net);
+        long start = System.nanoTime();
+        int moves = 2_000;
+        for (int i = 0; i < moves; i++) {
+            strategy.chooseMove(GameRules.copyOf(positions[i & 1023]), WIN_LEN, Enums.Dot.AI.getValue());
+        }
+        System.out.printf("NeuralStrategy: %,.1f us/move%n", (System.nanoTime() - start) / 1e3 / moves);
+    }
+
+    /**
+     * Заготавливает позиции середины игры.
+     *
+     * @param count число позиций
+     * @return позиции
+     */
+    private static int[][][] positions(int count) {
+        SplittableRandom random = new SplittableRandom(1);
+        int[][][] positions = new int[count][][];
+        for (int i = 0; i < count; i++) {
+            int[][] field = new int[SIZE][SIZE];
+            for (int stones = 0; stones < 20; stones++) {
+                field[random.nextInt(SIZE)][random.nextInt(SIZE)] = 1 + (stones & 1);
+            }
+            positions[i] = field;
+        }
+        return positions;
+    }
+
+    /**
+     * Возвращает объём памяти, выделенной текущим потоком.
+     *
+     * @return байт
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
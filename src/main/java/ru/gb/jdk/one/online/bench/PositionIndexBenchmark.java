@@ -0,0 +1,158 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+import ru.gb.jdk.one.online.index.*;
+
+/**
+ * Строит {@link PositionIndex} по архиву партий случайной игры и замеряет поиск позиций.
+ * <p>
+ * Архив партий генерируется стратегией {@link WinBlockStrategy} с разными зёрнами, затем
+ * индекс строится сортировкой слиянием и отображается в память. Печатаются время построения,
+ * размер файла, а также средняя и 99-я перцентиль времени поиска для позиций из архива.
+ * Для 100 млн позиций нужно около 2 млн партий на поле 10×10 (~4 ГБ на диске):
+ * {@code java -cp target/classes ru.gb.jdk.one.online.bench.PositionIndexBenchmark 2000000 /tmp}.
+ * </p>
+ */
+public class PositionIndexBenchmark {
+
+    /** Размер поля */
+    private static final int SIZE = Constants.FIELD_SIZE_MAX;
+
+    /** Длина для победы */
+    private static final int WIN_LEN = 5;
+
+    /** Число поисков в замере */
+    private static final int LOOKUPS = 1_000_000;
+
+    /**
+     * Точка входа.
+     *
+     * @param args число партий и каталог для файлов
+     */
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path dir = Files.createTempDirectory(args.length > 1 ? Path.of(args[1]) : Path.of(System.getProperty("java.io.tmpdir")),
+                "position-index");
+        Path archive = dir.resolve("games.txt");
+        Path file = dir.resolve("positions.idx");
+
+        long start = System.nanoTime();
+        try (BufferedWriter writer = Files.newBufferedWriter(archive)) {
+            for (int id = 0; id < games; id++) {
+                writer.write(playGame(id).toString());
+                writer.newLine();
+            }
+        }
+        System.out.printf("archive: %,d games in %,.1f s, %,d MB%n", games, (System.nanoTime() - start) / 1e9,
+                Files.size(archive) >> 20);
+
+        start = System.nanoTime();
+        PositionIndexBuilder builder = new PositionIndexBuilder(dir);
+        builder.addArchive(archive);
+        builder.build(file);
+        System.out.printf("build: %,.1f s, %,d MB%n", (System.nanoTime() - start) / 1e9, Files.size(file) >> 20);
+
+        try (PositionIndex index = PositionIndex.open(file)) {
+            System.out.printf("positions %,d, distinct %,d%n", index.getPostingCount(), index.getKeyCount());
+            long[] queries = sampleQueries(archive, games);
+            long[] nanos = new long[LOOKUPS];
+            long found = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                long t = System.nanoTime();
+                PositionIndex.Stats stats = index.find(queries[i % queries.length]);
+                nanos[i] = System.nanoTime() - t;
+                if (stats != null) found++;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("lookup: mean %,.0f ns, p99 %,d ns, found %,d of %,d%n",
+                    Arrays.stream(nanos).average().orElse(0), nanos[(int) (LOOKUPS * 0.99)], found, LOOKUPS);
+
+            PositionIndex.Stats opening = index.find(centerOpening());
+            System.out.println("center opening: " + opening);
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * Играет одну партию стратегией «выиграть или заблокировать» и записывает её.
+     *
+     * @param id номер партии (зерно)
+     * @return запись партии
+     */
+    private static GameRecord playGame(long id) {
+        GameRecord record = new GameRecord(Enums.GameMode.HVH, SIZE, SIZE, WIN_LEN, id);
+        MoveStrategy strategy = new WinBlockStrategy(new SplittableRandom(id));
+        int[][] field = new int[SIZE][SIZE];
+        int dot = Enums.Dot.HUMAN.getValue();
+        for (int ply = 0; ply < SIZE * SIZE; ply++) {
+            Move move = strategy.chooseMove(GameRules.copyOf(field), WIN_LEN, dot);
+            field[move.y()][move.x()] = dot;
+            record.add(move.x(), move.y());
+            if (GameRules.isWinningMove(field, WIN_LEN, move.x(), move.y(), dot)) break;
+            dot = GameRules.opponent(dot);
+        }
+        return record;
+    }
+
+    /**
+     * Выбирает позиции для поиска: случайные ходы случайных партий архива.
+     *
+     * @param archive файл архива
+     * @param games   число партий
+     * @return канонические хеши позиций
+     */
+    private static long[] sampleQueries(Path archive, int games) throws Exception {
+        SplittableRandom random = new SplittableRandom(7);
+        long[] queries = new long[Math.min(games, 100_000)];
+        int[] picked = random.ints(queries.length, 0, games).sorted().toArray();
+        try (Stream<String> lines = Files.lines(archive)) {
+            Iterator<String> iterator = lines.iterator();
+            int line = 0;
+            for (int q = 0; q < picked.length; q++) {
+                String text = null;
+                while (line <= picked[q]) {
+                    text = iterator.next();
+                    line++;
+                }
+                if (text == null) {
+                    queries[q] = queries[q - 1];
+                    continue;
+                }
+                GameRecord record = GameRecord.parse(text);
+                CanonicalHash hash = new CanonicalHash(SIZE, SIZE, WIN_LEN);
+                int plies = 1 + random.nextInt(record.size());
+                int dot = Enums.Dot.HUMAN.getValue();
+                for (int ply = 0; ply < plies; ply++) {
+                    Move move = record.getMove(ply);
+                    hash.toggle(move.x(), move.y(), dot);
+                    dot = GameRules.opponent(dot);
+                }
+                queries[q] = hash.value();
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Возвращает хеш позиции с единственной фишкой первого игрока в центре.
+     *
+     * @return канонический хеш
+     */
+    private static long centerOpening() {
+        int[][] field = new int[SIZE][SIZE];
+        field[SIZE / 2][SIZE / 2] = Enums.Dot.HUMAN.getValue();
+        return CanonicalHash.of(field, WIN_LEN);
+    }
+}
@@ -0,0 +1,224 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Нагрузочный тест {@link AiScheduler}: запросы ходов поступают с постоянной частотой,
+ * вдвое превышающей пропускную способность рабочих потоков.
+ * <p>
+ * Поиск хода моделируется повторной оценкой позиции в течение заданного времени; если срок
+ * наступает раньше, поиск прерывается {@link EndgameSolver.DeadlineExceededException}, и
+ * планировщик отвечает запасным ходом. Для сравнения та же нагрузка подаётся в обычный
+ * пул потоков с очередью FIFO без сроков. Печатаются перцентили задержки, число
+ * сброшенных на эвристику запросов и промахов по сроку.
+ * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.bench.SchedulerBenchmark [workers] [seconds]}.
+ * </p>
+ */
+public class SchedulerBenchmark {
+
+    /** Размер поля */
+    private static final int SIZE = Constants.FIELD_SIZE_MAX;
+
+    /** Длина для победы */
+    private static final int WIN_LEN = 5;
+
+    /** Время полного поиска одного хода, мс */
+    private static final long SEARCH_MS = 20;
+
+    /** Срок ответа на запрос, мс */
+    private static final long DEADLINE_MS = 100;
+
+    /** Перегрузка: во сколько раз частота запросов превышает пропускную способность */
+    private static final int OVERLOAD = 2;
+
+    /** Число заготовленных позиций */
+    private static final int POSITIONS = 256;
+
+    /**
+     * Точка входа.
+     *
+     * @param args число рабочих потоков и длительность каждого прогона в секундах
+     */
+    public static void main(String[] args) throws Exception {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int[][][] positions = positions();
+        long rate = workers * 1000 / SEARCH_MS * OVERLOAD;
+        int requests = (int) (rate * seconds);
+        System.out.printf("workers %d, search %d ms, deadline %d ms, %,d requests/s (%dx capacity)%n",
+                workers, SEARCH_MS, DEADLINE_MS, rate, OVERLOAD);
+
+        MoveStrategy search = new SimulatedSearch();
+        AiScheduler scheduler = new AiScheduler(workers, AiScheduler.DEFAULT_SATURATION);
+        long[] latencies = run(requests, rate, positions, (field, deadline) ->
+                scheduler.requestMove(search, field, WIN_LEN, Enums.Dot.AI.getValue(), deadline));
+        print("EDF scheduler", latencies);
+        System.out.printf("  shed %,d, degraded %,d, deadline misses %,d of %,d%n", scheduler.getShed(),
+                scheduler.getDegraded(), scheduler.getDeadlineMisses(), scheduler.getCompleted());
+        scheduler.shutdown();
+
+        ExecutorService fifo = Executors.newFixedThreadPool(workers);
+        latencies = run(requests, rate, positions, (field, deadline) -> CompletableFuture.supplyAsync(
+                () -> search.chooseMove(field, WIN_LEN, Enums.Dot.AI.getValue()), fifo));
+        print("FIFO pool", latencies);
+        fifo.shutdownNow();
+    }
+
+    /**
+     * Способ отправить запрос хода.
+     */
+    @FunctionalInterface
+    private interface Submitter {
+
+        /**
+         * Отправляет запрос.
+         *
+         * @param field    игровое поле
+         * @param deadline срок по {@link System#nanoTime()}
+         * @return будущий результат
+         */
+        CompletableFuture<?> submit(int[][] field, long deadline);
+    }
+
+    /**
+     * Подаёт запросы с постоянной частотой и собирает задержки.
+     *
+     * @param requests  число запросов
+     * @param rate      запросов в секунду
+     * @param positions позиции для запросов
+     * @param submitter способ отправки запроса
+     * @return задержки запросов, нс
+     */
+    private static long[] run(int requests, long rate, int[][][] positions, Submitter submitter) throws Exception {
+        long[] latencies = new long[requests];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            long arrival = start + i * interval;
+            LockSupport.parkNanos(arrival - System.nanoTime());
+            long submitted = System.nanoTime();
+            int index = i;
+            futures[i] = submitter.submit(positions[i % POSITIONS],
+                            submitted + TimeUnit.MILLISECONDS.toNanos(DEADLINE_MS))
+                    .thenRun(() -> latencies[index] = System.nanoTime() - submitted);
+        }
+        CompletableFuture.allOf(futures).get();
+        return latencies;
+    }
+
+    /**
+     * Модель поиска: повторно оценивает позицию, пока не истечёт время поиска; по сроку прерывается.
+     */
+    private static final class SimulatedSearch implements MoveStrategy {
+
+        /** Накопитель оценок, чтобы JIT не выбросил вычисления */
+        private static volatile long sink;
+
+        @Override
+        public Move chooseMove(int[][] field, int winLen, int dot) {
+            spin(field, winLen, dot, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SEARCH_MS));
+            return chooseFallbackMove(field, winLen, dot);
+        }
+
+        @Override
+        public Move chooseMove(int[][] field, int winLen, int dot, long deadlineNanos) {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SEARCH_MS);
+            if (deadlineNanos - end < 0) {
+                // Срок наступает раньше конца поиска: как и настоящий поиск, прерываемся по сроку
+                spin(field, winLen, dot, deadlineNanos);
+                throw new EndgameSolver.DeadlineExceededException();
+            }
+            spin(field, winLen, dot, end);
+            return chooseFallbackMove(field, winLen, dot);
+        }
+
+        @Override
+        public Move chooseFallbackMove(int[][] field, int winLen, int dot) {
+            Move move = WinBlockStrategy.findWinMove(field, winLen, dot);
+            return move != null ? move : firstEmpty(field);
+        }
+
+        /**
+         * Повторно оценивает позицию до заданного момента.
+         *
+         * @param field  игровое поле
+         * @param winLen длина победной последовательности
+         * @param dot    значение ходящего игрока
+         * @param end    момент окончания по {@link System#nanoTime()}
+         */
+        private static void spin(int[][] field, int winLen, int dot, long end) {
+            long sum = 0;
+            while (System.nanoTime() - end < 0) {
+                sum += LineEvaluator.evaluateNaive(field, winLen, dot);
+            }
+            sink = sum;
+        }
+    }
+
+    /**
+     * Находит первую пустую ячейку.
+     *
+     * @param field игровое поле
+     * @return ход в пустую ячейку
+     */
+    private static Move firstEmpty(int[][] field) {
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < field[y].length; x++) {
+                if (field[y][x] == Enums.Dot.EMPTY.getValue()) return new Move(x, y);
+            }
+        }
+        throw new IllegalStateException("Нет пустых ячеек");
+    }
+
+    /**
+     * Заготавливает позиции середины игры.
+     *
+     * @return позиции
+     */
+    private static int[][][] positions() {
+        SplittableRandom random = new SplittableRandom(1);
+        int[][][] positions = new int[POSITIONS][][];
+        for (int i = 0; i < POSITIONS; i++) {
+            int[][] field = new int[SIZE][SIZE];
+            for (int stones = 0; stones < 16; stones++) {
+                field[random.nextInt(SIZE)][random.nextInt(SIZE)] = 1 + (stones & 1);
+            }
+            positions[i] = field;
+        }
+        return positions;
+    }
+
+    /**
+     * Печатает перцентили задержки.
+     *
+     * @param name      название прогона
+     * @param latencies задержки, нс
+     */
+    private static void print(String name, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%s: p50 %,.1f ms, p99 %,.1f ms, max %,.1f ms%n", name,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    /**
+     * Возвращает перцентиль отсортированного массива.
+     *
+     * @param sorted отсортированные значения
+     * @param p      доля от 0 до 1
+     * @return значение перцентиля
+     */
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+}
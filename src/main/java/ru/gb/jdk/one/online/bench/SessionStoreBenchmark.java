@@ -0,0 +1,83 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+import ru.gb.jdk.one.online.session.*;
+
+/**
+ * Заполняет {@link SessionStore} большим числом партий в середине игры и затем
+ * обрабатывает случайные ходы в случайных играх (загрузка в кучу, ход, сохранение).
+ * <p>
+ * Печатает объём памяти на игру, скорость операций и паузы сборщика мусора.
+ * Для 10 млн игр на поле 10×10 нужно около 3,5 ГБ памяти вне кучи:
+ * {@code java -cp target/classes ru.gb.jdk.one.online.bench.SessionStoreBenchmark 10000000}.
+ * </p>
+ */
+public class SessionStoreBenchmark {
+
+    /** Размер поля */
+    private static final int SIZE = Constants.FIELD_SIZE_MAX;
+
+    /** Длина для победы */
+    private static final int WIN_LEN = 5;
+
+    /** Число ходов в каждой сохранённой партии */
+    private static final int MOVES_PER_GAME = 8;
+
+    /**
+     * Точка входа.
+     *
+     * @param args число игр (по умолчанию 1 млн) и число обрабатываемых ходов (по умолчанию 1 млн)
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int touches = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        SplittableRandom random = new SplittableRandom(1);
+
+        try (SessionStore store = new SessionStore(games, SIZE * SIZE)) {
+            long gcBefore = gcMillis();
+            long start = System.nanoTime();
+            for (int id = 0; id < games; id++) {
+                GameSession session = new GameSession(id, new GameRecord(Enums.GameMode.HVA, SIZE, SIZE, WIN_LEN, id));
+                for (int i = 0; i < MOVES_PER_GAME; i++) {
+                    session.play(random.nextInt(SIZE), random.nextInt(SIZE));
+                }
+                store.save(session);
+            }
+            long fillNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < touches; i++) {
+                GameSession session = store.load(random.nextInt(games));
+                session.play(random.nextInt(SIZE), random.nextInt(SIZE));
+                store.save(session);
+            }
+            long touchNanos = System.nanoTime() - start;
+
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("games %,d, off-heap %,d bytes/game (%,d MB total)%n", store.size(),
+                    store.bytesPerGame(), store.bytesPerGame() * games >> 20);
+            System.out.printf("fill %,.0f games/s, load+play+save %,.0f ops/s%n",
+                    games * 1e9 / fillNanos, touches * 1e9 / touchNanos);
+            System.out.printf("heap used %,d MB, GC time %,d ms%n",
+                    (runtime.totalMemory() - runtime.freeMemory()) >> 20, gcMillis() - gcBefore);
+        }
+    }
+
+    /**
+     * Возвращает суммарное время работы сборщиков мусора.
+     *
+     * @return миллисекунды
+     */
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, bean.getCollectionTime());
+        }
+        return total;
+    }
+}
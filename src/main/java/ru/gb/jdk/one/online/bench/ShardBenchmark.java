@@ -0,0 +1,152 @@
+package ru.gb.jdk.one.online.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.cluster.*;
+import ru.gb.jdk.one.online.common.*;
+import ru.gb.jdk.one.online.session.*;
+
+/**
+ * Нагрузочный тест кластера: запускает узлы {@link ShardNode} отдельными JVM на петлевом
+ * интерфейсе и подаёт ходы через {@link ShardRouter}.
+ * <p>
+ * Узлы добавляются по одному: после каждого добавления печатается число переехавших игр,
+ * время переезда и пропускная способность кластера. В конце один узел удаляется, и все
+ * игры проверяются на сохранность (число ходов до и после переездов совпадает).
+ * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.bench.ShardBenchmark [nodes] [games] [seconds] [clients]}.
+ * </p>
+ */
+public class ShardBenchmark {
+
+    /** Размер поля */
+    private static final int SIZE = Constants.FIELD_SIZE_MAX;
+
+    /** Длина для победы */
+    private static final int WIN_LEN = 5;
+
+    /**
+     * Точка входа.
+     *
+     * @param args число узлов, число игр, длительность замера в секундах и число клиентских потоков
+     */
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+
+        List<Process> processes = new ArrayList<>();
+        try (ShardRouter router = new ShardRouter()) {
+            for (int n = 1; n <= nodes; n++) {
+                Process process = startNode();
+                processes.add(process);
+                long start = System.nanoTime();
+                int moved = router.addNode("node-" + n, new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        readPort(process)));
+                long migrateNanos = System.nanoTime() - start;
+                if (n == 1) {
+                    for (int id = 0; id < games; id++) {
+                        router.create(id, new GameRecord(Enums.GameMode.HVH, SIZE, SIZE, WIN_LEN, id));
+                    }
+                }
+                double rate = measure(router, games, seconds, clients);
+                System.out.printf("nodes %d: migrated %,d games in %,.1f ms, %,.0f moves/s%n",
+                        n, moved, migrateNanos / 1e6, rate);
+            }
+
+            long before = totalMoves(router, games);
+            long start = System.nanoTime();
+            int moved = router.removeNode("node-1");
+            System.out.printf("node-1 left: migrated %,d games in %,.1f ms, moves before %,d, after %,d%n",
+                    moved, (System.nanoTime() - start) / 1e6, before, totalMoves(router, games));
+        } finally {
+            processes.forEach(Process::destroy);
+        }
+    }
+
+    /**
+     * Запускает процесс узла с тем же путём классов.
+     *
+     * @return процесс узла
+     * @throws IOException если процесс не запустился
+     */
+    private static Process startNode() throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ShardNode.class.getName())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /**
+     * Ждёт строку готовности узла и читает из неё порт.
+     *
+     * @param process процесс узла
+     * @return номер порта
+     * @throws IOException если узел завершился, не сообщив о готовности
+     */
+    private static int readPort(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(ShardProtocol.READY_LINE)) {
+                return Integer.parseInt(line.substring(ShardProtocol.READY_LINE.length()).trim());
+            }
+        }
+        throw new IOException(Constants.SHARD_PROTOCOL_ERROR_LABEL + "no " + ShardProtocol.READY_LINE);
+    }
+
+    /**
+     * Подаёт случайные ходы в случайные игры из нескольких потоков.
+     *
+     * @param router  маршрутизатор
+     * @param games   число игр
+     * @param seconds длительность замера
+     * @param clients число клиентских потоков
+     * @return запросов хода в секунду
+     */
+    private static double measure(ShardRouter router, int games, int seconds, int clients) throws InterruptedException {
+        LongAdder requests = new LongAdder();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            threads[t] = new Thread(() -> {
+                while (System.nanoTime() - end < 0) {
+                    router.move(random.nextInt(games), random.nextInt(SIZE), random.nextInt(SIZE));
+                    requests.increment();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return requests.sum() / (double) seconds;
+    }
+
+    /**
+     * Считает ходы во всех играх кластера.
+     *
+     * @param router маршрутизатор
+     * @param games  число игр
+     * @return суммарное число ходов
+     */
+    private static long totalMoves(ShardRouter router, int games) {
+        long total = 0;
+        for (int id = 0; id < games; id++) {
+            GameSession session = router.get(id);
+            total += session.getRecord().size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,195 @@
+package ru.gb.jdk.one.online.bench;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ru.gb.jdk.one.online.GameWindow;
+import ru.gb.jdk.one.online.Main;
+import ru.gb.jdk.one.online.Map;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Измеряет время запуска приложения: до первой отрисовки окна и до первого хода компьютера.
+ * <p>
+ * Каждый запуск — отдельная JVM с {@link Probe}; время отсчитывается от старта JVM.
+ * Сравниваются запуск со стандартным архивом классов JDK и с архивом AppCDS приложения
+ * (если архива нет, он создаётся пробным запуском с {@code -XX:ArchiveClassesAtExit}).
+ * AppCDS архивирует только классы из jar, поэтому запускать нужно с собранным jar:
+ * {@code java -cp target/<артефакт>.jar ru.gb.jdk.one.online.bench.StartupBenchmark [runs] [archive]}.
+ * Нужен графический дисплей.
+ * </p>
+ */
+public class StartupBenchmark {
+
+    /** Префикс строки результата пробного запуска */
+    private static final String RESULT_LINE = "STARTUP";
+
+    /**
+     * Точка входа.
+     *
+     * @param args число запусков на конфигурацию и путь к архиву AppCDS
+     */
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Path archive = Path.of(args.length > 1 ? args[1] : "target/app.jsa");
+        if (!System.getProperty("java.class.path").endsWith(".jar")) {
+            System.out.println("warning: classes are not in a jar, AppCDS will archive JDK classes only");
+        }
+        if (!Files.exists(archive)) {
+            run("-XX:ArchiveClassesAtExit=" + archive);
+            System.out.println("created " + archive);
+        }
+        report("default CDS", runs);
+        report("AppCDS", runs, "-XX:SharedArchiveFile=" + archive);
+    }
+
+    /**
+     * Запускает пробу несколько раз и печатает медианы.
+     *
+     * @param name    название конфигурации
+     * @param runs    число запусков
+     * @param jvmArgs флаги JVM
+     */
+    private static void report(String name, int runs, String... jvmArgs) throws IOException, InterruptedException {
+        long[] paint = new long[runs];
+        long[] aiMove = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] result = run(jvmArgs);
+            paint[i] = result[0];
+            aiMove[i] = result[1];
+        }
+        Arrays.sort(paint);
+        Arrays.sort(aiMove);
+        System.out.printf("%-12s first paint %,d ms, first AI move %,d ms (median of %d)%n",
+                name, paint[runs / 2], aiMove[runs / 2], runs);
+    }
+
+    /**
+     * Запускает пробу в отдельной JVM с тем же путём классов.
+     *
+     * @param jvmArgs флаги JVM
+     * @return время до первой отрисовки и до первого хода компьютера, мс
+     * @throws IOException если проба завершилась, не сообщив результат
+     */
+    private static long[] run(String... jvmArgs) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(Arrays.asList(jvmArgs));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Probe.class.getName());
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        long[] result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith(RESULT_LINE)) continue;
+                String[] parts = line.trim().split(" ");
+                result = new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2])};
+            }
+        }
+        process.waitFor();
+        if (result == null) throw new IOException("probe exited with " + process.exitValue() + " and no " + RESULT_LINE);
+        return result;
+    }
+
+    /**
+     * Пробный запуск: обычный старт через {@link Main}, затем игра против компьютера и один ход человека.
+     * <p>
+     * Печатает строку {@code STARTUP <первая отрисовка> <первый ход компьютера>} (мс от старта JVM)
+     * и завершает JVM. Этот же запуск служит обучающим при сборке архива AppCDS (профиль {@code cds}):
+     * он проходит весь путь классов от старта до первого ответа компьютера.
+     * </p>
+     */
+    public static class Probe {
+
+        /**
+         * Точка входа.
+         *
+         * @param args не используются
+         */
+        public static void main(String[] args) throws Exception {
+            if (GraphicsEnvironment.isHeadless()) throw new HeadlessException();
+            long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+            CountDownLatch painted = new CountDownLatch(1);
+            long[] paintTime = new long[1];
+            // Событие отрисовки приходит до самой отрисовки, а Swing рисует в отдельном событии очереди:
+            // вложенный invokeLater выполняется уже после неё
+            Toolkit.getDefaultToolkit().addAWTEventListener(event -> {
+                if (painted.getCount() == 0) return;
+                SwingUtilities.invokeLater(() -> SwingUtilities.invokeLater(() -> {
+                    if (painted.getCount() == 0) return;
+                    paintTime[0] = System.currentTimeMillis();
+                    painted.countDown();
+                }));
+            }, AWTEvent.PAINT_EVENT_MASK);
+
+            Main.main(args);
+            if (!painted.await(1, TimeUnit.MINUTES)) throw new IllegalStateException("no paint");
+
+            Map[] map = new Map[1];
+            SwingUtilities.invokeAndWait(() -> {
+                GameWindow window = findWindow();
+                window.startNewGame(Enums.GameMode.HVA, Constants.FIELD_SIZE_MIN, Constants.FIELD_SIZE_MIN,
+                        Constants.FIELD_SIZE_MIN);
+                map[0] = findMap(window.getContentPane());
+                // Ход человека в центр поля
+                int x = map[0].getWidth() / 2;
+                int y = map[0].getHeight() / 2;
+                map[0].dispatchEvent(new MouseEvent(map[0], MouseEvent.MOUSE_RELEASED, System.currentTimeMillis(),
+                        0, x, y, 1, false, MouseEvent.BUTTON1));
+            });
+            int[] moves = new int[1];
+            while (moves[0] < 2) {
+                Thread.sleep(1);
+                SwingUtilities.invokeAndWait(() -> moves[0] = map[0].getGameRecord().size());
+            }
+            long aiMoveTime = System.currentTimeMillis();
+            System.out.println(RESULT_LINE + " " + (paintTime[0] - jvmStart) + " " + (aiMoveTime - jvmStart));
+            System.exit(0);
+        }
+
+        /**
+         * Находит главное окно приложения.
+         *
+         * @return главное окно
+         */
+        private static GameWindow findWindow() {
+            for (Frame frame : Frame.getFrames()) {
+                if (frame instanceof GameWindow window) return window;
+            }
+            throw new IllegalStateException("no " + GameWindow.class.getSimpleName());
+        }
+
+        /**
+         * Находит игровое поле среди компонентов контейнера.
+         *
+         * @param container контейнер
+         * @return игровое поле или {@code null}
+         */
+        private static Map findMap(Container container) {
+            for (Component component : container.getComponents()) {
+                if (component instanceof Map map) return map;
+                if (component instanceof Container child) {
+                    Map map = findMap(child);
+                    if (map != null) return map;
+                }
+            }
+            return null;
+        }
+    }
+}
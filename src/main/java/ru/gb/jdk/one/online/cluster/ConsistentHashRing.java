@@ -0,0 +1,220 @@
+package ru.gb.jdk.one.online.cluster;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Кольцо консистентного хеширования идентификаторов игр по узлам кластера.
+ * <p>
+ * Каждый узел занимает на кольце несколько виртуальных точек, поэтому игры распределяются
+ * равномерно, а при добавлении или удалении узла переезжает только около {@code 1/n} игр.
+ * Точки можно добавлять и удалять по одной: тогда за раз меняет владельца только дуга
+ * перед точкой, и игры можно переносить по дугам. Экземпляр не потокобезопасен.
+ * </p>
+ */
+public class ConsistentHashRing {
+
+    /** Число виртуальных точек на узел по умолчанию */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    /** Число виртуальных точек на узел */
+    private final int virtualNodes;
+
+    /** Точки кольца: хеш точки → идентификатор узла */
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    /** Узлы в порядке добавления */
+    private final Set<String> nodes = new LinkedHashSet<>();
+
+    /**
+     * Создаёт кольцо с числом виртуальных точек по умолчанию.
+     */
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param virtualNodes число виртуальных точек на узел
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Добавляет узел.
+     *
+     * @param node идентификатор узла
+     */
+    public void add(String node) {
+        if (!nodes.add(node)) return;
+        for (int replica = 0; replica < virtualNodes; replica++) {
+            ring.put(pointOf(node, replica), node);
+        }
+    }
+
+    /**
+     * Добавляет одну виртуальную точку узла; узел появляется в кольце с первой точкой.
+     *
+     * @param node    идентификатор узла
+     * @param replica номер точки
+     */
+    public void addPoint(String node, int replica) {
+        nodes.add(node);
+        ring.put(pointOf(node, replica), node);
+    }
+
+    /**
+     * Удаляет узел.
+     *
+     * @param node идентификатор узла
+     */
+    public void remove(String node) {
+        if (!nodes.remove(node)) return;
+        for (int replica = 0; replica < virtualNodes; replica++) {
+            ring.remove(pointOf(node, replica), node);
+        }
+    }
+
+    /**
+     * Удаляет одну виртуальную точку узла; узел исчезает из кольца вместе с последней точкой.
+     *
+     * @param node    идентификатор узла
+     * @param replica номер точки
+     */
+    public void removePoint(String node, int replica) {
+        if (ring.remove(pointOf(node, replica), node) && !ring.containsValue(node)) nodes.remove(node);
+    }
+
+    /**
+     * Проверяет, есть ли в кольце виртуальная точка узла.
+     *
+     * @param node    идентификатор узла
+     * @param replica номер точки
+     * @return {@code true} если точка есть
+     */
+    public boolean hasPoint(String node, int replica) {
+        return node.equals(ring.get(pointOf(node, replica)));
+    }
+
+    /**
+     * Возвращает узел, которому принадлежит игра: первая точка кольца не меньше хеша игры.
+     *
+     * @param gameId идентификатор игры
+     * @return идентификатор узла
+     * @throws IllegalStateException если в кольце нет узлов
+     */
+    public String nodeFor(long gameId) {
+        return ownerOf(positionOf(gameId));
+    }
+
+    /**
+     * Возвращает узел, которому принадлежит положение на кольце: первая точка не меньше него.
+     *
+     * @param position положение на кольце
+     * @return идентификатор узла
+     * @throws IllegalStateException если в кольце нет узлов
+     */
+    public String ownerOf(long position) {
+        if (ring.isEmpty()) throw new IllegalStateException(Constants.SHARD_NO_NODES_LABEL);
+        Map.Entry<Long, String> entry = ring.ceilingEntry(position);
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Возвращает узел первой точки строго после положения (по кругу).
+     *
+     * @param position положение на кольце
+     * @return идентификатор узла
+     * @throws IllegalStateException если в кольце нет узлов
+     */
+    public String ownerAfter(long position) {
+        if (ring.isEmpty()) throw new IllegalStateException(Constants.SHARD_NO_NODES_LABEL);
+        Map.Entry<Long, String> entry = ring.higherEntry(position);
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Возвращает ближайшую точку кольца строго перед положением (по кругу).
+     * Если точка в кольце одна, возвращается она сама: её дуга — всё кольцо.
+     *
+     * @param position положение на кольце
+     * @return положение точки
+     * @throws IllegalStateException если в кольце нет узлов
+     */
+    public long previousPoint(long position) {
+        if (ring.isEmpty()) throw new IllegalStateException(Constants.SHARD_NO_NODES_LABEL);
+        Long point = ring.lowerKey(position);
+        return point != null ? point : ring.lastKey();
+    }
+
+    /**
+     * Возвращает узлы кольца.
+     *
+     * @return неизменяемое множество идентификаторов узлов
+     */
+    public Set<String> getNodes() {
+        return Collections.unmodifiableSet(nodes);
+    }
+
+    /**
+     * Возвращает число виртуальных точек на узел.
+     *
+     * @return число точек
+     */
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    /**
+     * Вычисляет положение виртуальной точки узла.
+     *
+     * @param node    идентификатор узла
+     * @param replica номер точки
+     * @return хеш точки
+     */
+    public static long pointOf(String node, int replica) {
+        return mix((long) node.hashCode() << 32 | replica);
+    }
+
+    /**
+     * Вычисляет положение игры на кольце.
+     *
+     * @param gameId идентификатор игры
+     * @return хеш игры
+     */
+    public static long positionOf(long gameId) {
+        return mix(gameId);
+    }
+
+    /**
+     * Проверяет, лежит ли положение на дуге {@code (from, to]} (по кругу; при {@code from == to} — всё кольцо).
+     *
+     * @param position положение на кольце
+     * @param from     начало дуги (не входит)
+     * @param to       конец дуги (входит)
+     * @return {@code true} если положение на дуге
+     */
+    public static boolean inArc(long position, long from, long to) {
+        return from < to ? position > from && position <= to : position > from || position <= to;
+    }
+
+    /**
+     * Перемешивает биты числа (финализатор SplitMix64).
+     *
+     * @param value число
+     * @return хеш
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,246 @@
+package ru.gb.jdk.one.online.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import ru.gb.jdk.one.online.common.*;
+import ru.gb.jdk.one.online.session.*;
+
+/**
+ * Клиент одного узла кластера с пулом постоянных соединений.
+ * <p>
+ * Потокобезопасен: каждый вызов берёт свободное соединение из пула (или открывает новое)
+ * и возвращает его после ответа. Соединение, на котором произошла ошибка, закрывается.
+ * Ошибки ввода-вывода пробрасываются как {@link UncheckedIOException}.
+ * </p>
+ */
+public class ShardClient implements AutoCloseable {
+
+    /** Адрес узла */
+    private final InetSocketAddress address;
+
+    /** Свободные соединения */
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+
+    /**
+     * Конструктор.
+     *
+     * @param address адрес узла
+     */
+    public ShardClient(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    /**
+     * Сохраняет новую сессию на узле.
+     *
+     * @param session сессия
+     * @throws IllegalStateException если игра с таким идентификатором уже есть на узле
+     */
+    public void put(GameSession session) {
+        byte status = call(connection -> {
+            connection.out.writeByte(ShardProtocol.PUT);
+            SessionSnapshot.write(connection.out, session);
+            connection.out.flush();
+            return connection.in.readByte();
+        });
+        if (status == ShardProtocol.EXISTS) {
+            throw new IllegalStateException(Constants.SHARD_GAME_EXISTS_LABEL + session.getGameId());
+        }
+        expectOk(status, session.getGameId());
+    }
+
+    /**
+     * Делает ход в игре на узле.
+     *
+     * @param gameId идентификатор игры
+     * @param x      координата X
+     * @param y      координата Y
+     * @return состояние игры после хода или {@code null}, если ход отклонён
+     */
+    public Enums.GameState move(long gameId, int x, int y) {
+        return call(connection -> {
+            connection.out.writeByte(ShardProtocol.MOVE);
+            connection.out.writeLong(gameId);
+            connection.out.writeByte(x);
+            connection.out.writeByte(y);
+            connection.out.flush();
+            byte status = connection.in.readByte();
+            if (status == ShardProtocol.REJECTED) {
+                connection.in.readByte();
+                return null;
+            }
+            expectOk(status, gameId);
+            return Enums.GameState.values()[connection.in.readUnsignedByte()];
+        });
+    }
+
+    /**
+     * Читает сессию с узла.
+     *
+     * @param gameId идентификатор игры
+     * @return копия сессии
+     */
+    public GameSession get(long gameId) {
+        return call(connection -> {
+            connection.out.writeByte(ShardProtocol.GET);
+            connection.out.writeLong(gameId);
+            connection.out.flush();
+            expectOk(connection.in.readByte(), gameId);
+            return SessionSnapshot.read(connection.in);
+        });
+    }
+
+    /**
+     * Удаляет сессию с узла.
+     *
+     * @param gameId идентификатор игры
+     * @return {@code true} если сессия была на узле
+     */
+    public boolean remove(long gameId) {
+        byte status = call(connection -> {
+            connection.out.writeByte(ShardProtocol.REMOVE);
+            connection.out.writeLong(gameId);
+            connection.out.flush();
+            return connection.in.readByte();
+        });
+        if (status == ShardProtocol.NOT_FOUND) return false;
+        expectOk(status, gameId);
+        return true;
+    }
+
+    /**
+     * Перечисляет игры узла, лежащие на дуге кольца.
+     *
+     * @param from начало дуги (не входит)
+     * @param to   конец дуги (входит)
+     * @return идентификаторы игр
+     * @see ConsistentHashRing#inArc
+     */
+    public long[] list(long from, long to) {
+        return call(connection -> {
+            connection.out.writeByte(ShardProtocol.LIST);
+            connection.out.writeLong(from);
+            connection.out.writeLong(to);
+            connection.out.flush();
+            expectOk(connection.in.readByte(), -1);
+            long[] ids = new long[connection.in.readInt()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = connection.in.readLong();
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * Проверяет статус ответа.
+     *
+     * @param status статус
+     * @param gameId идентификатор игры для сообщения об ошибке
+     */
+    private static void expectOk(byte status, long gameId) {
+        if (status == ShardProtocol.NOT_FOUND) throw new IllegalStateException(Constants.SHARD_GAME_NOT_FOUND_LABEL + gameId);
+        if (status != ShardProtocol.OK) throw new IllegalStateException(Constants.SHARD_PROTOCOL_ERROR_LABEL + status);
+    }
+
+    /**
+     * Обмен сообщениями по одному соединению.
+     *
+     * @param <T> тип результата
+     */
+    @FunctionalInterface
+    private interface Exchange<T> {
+
+        /**
+         * Отправляет запрос и читает ответ.
+         *
+         * @param connection соединение
+         * @return результат
+         * @throws IOException при ошибке ввода-вывода
+         */
+        T run(Connection connection) throws IOException;
+    }
+
+    /**
+     * Выполняет обмен на свободном соединении.
+     *
+     * @param exchange обмен
+     * @param <T>      тип результата
+     * @return результат обмена
+     */
+    private <T> T call(Exchange<T> exchange) {
+        Connection connection = idle.poll();
+        try {
+            if (connection == null) connection = new Connection(address);
+            T result = exchange.run(connection);
+            idle.offer(connection);
+            return result;
+        } catch (IOException e) {
+            if (connection != null) connection.close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            // Ответ мог быть прочитан не до конца — соединение больше не годится
+            if (connection != null) connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Закрывает все свободные соединения.
+     */
+    @Override
+    public void close() {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Соединение с узлом и его буферизованные потоки.
+     */
+    private static final class Connection {
+
+        /** Сокет */
+        private final Socket socket;
+
+        /** Поток ответов */
+        private final DataInputStream in;
+
+        /** Поток запросов */
+        private final DataOutputStream out;
+
+        /**
+         * Открывает соединение.
+         *
+         * @param address адрес узла
+         * @throws IOException если узел недоступен
+         */
+        private Connection(InetSocketAddress address) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Закрывает соединение, не сообщая об ошибках.
+         */
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Соединение уже недоступно
+            }
+        }
+    }
+}
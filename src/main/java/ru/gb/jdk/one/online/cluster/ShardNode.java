@@ -0,0 +1,213 @@
+package ru.gb.jdk.one.online.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ru.gb.jdk.one.online.common.*;
+import ru.gb.jdk.one.online.session.*;
+
+/**
+ * Узел кластера: хранит свою часть игровых сессий и обрабатывает команды
+ * {@link ShardProtocol} по TCP на петлевом интерфейсе.
+ * <p>
+ * Каждое соединение обслуживает отдельный виртуальный поток. Ходы в одну игру
+ * упорядочиваются блокировкой её сессии. Запуск отдельным процессом:
+ * {@code java -cp target/classes ru.gb.jdk.one.online.cluster.ShardNode [port]};
+ * после запуска процесс печатает {@code READY <port>}.
+ * </p>
+ */
+public class ShardNode implements AutoCloseable {
+
+    /** Серверный сокет узла */
+    private final ServerSocket server;
+
+    /** Сессии узла по идентификатору игры */
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+
+    /** Потоки обслуживания соединений */
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Открывает серверный сокет на петлевом интерфейсе.
+     *
+     * @param port номер порта ({@code 0} — любой свободный)
+     * @throws IOException если порт недоступен
+     */
+    public ShardNode(int port) throws IOException {
+        this.server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Точка входа процесса узла.
+     *
+     * @param args номер порта (по умолчанию любой свободный)
+     * @throws IOException если порт недоступен
+     */
+    public static void main(String[] args) throws IOException {
+        ShardNode node = new ShardNode(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+        System.out.println(ShardProtocol.READY_LINE + " " + node.getPort());
+        System.out.flush();
+        node.serve();
+    }
+
+    /**
+     * Запускает приём соединений в фоновом потоке.
+     */
+    public void start() {
+        Thread thread = new Thread(this::serve, "shard-node-" + getPort());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Принимает соединения, пока сокет не закрыт.
+     * <p>
+     * Ошибка приёма, кроме закрытия сокета, закрывает узел (клиенты сразу получают отказ
+     * в соединении) и пробрасывается как {@link UncheckedIOException}.
+     * </p>
+     */
+    private void serve() {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (server.isClosed()) return;
+                try {
+                    close();
+                } catch (IOException closeError) {
+                    e.addSuppressed(closeError);
+                }
+                throw new UncheckedIOException(Constants.SHARD_ACCEPT_ERROR_LABEL + getPort(), e);
+            }
+            connections.execute(() -> handle(socket));
+        }
+    }
+
+    /**
+     * Обрабатывает команды одного соединения до его закрытия.
+     *
+     * @param socket сокет соединения
+     */
+    private void handle(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                int command;
+                try {
+                    command = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                execute(command, in, out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Соединение оборвано: маршрутизатор откроет новое
+        }
+    }
+
+    /**
+     * Выполняет одну команду.
+     *
+     * @param command код команды
+     * @param in      поток запроса
+     * @param out     поток ответа
+     * @throws IOException при ошибке ввода-вывода или неизвестной команде
+     */
+    private void execute(int command, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (command) {
+            case ShardProtocol.PUT -> {
+                GameSession session = SessionSnapshot.read(in);
+                out.writeByte(sessions.putIfAbsent(session.getGameId(), session) == null
+                        ? ShardProtocol.OK : ShardProtocol.EXISTS);
+            }
+            case ShardProtocol.MOVE -> {
+                long gameId = in.readLong();
+                int x = in.readUnsignedByte();
+                int y = in.readUnsignedByte();
+                GameSession session = sessions.get(gameId);
+                if (session == null) {
+                    out.writeByte(ShardProtocol.NOT_FOUND);
+                    return;
+                }
+                synchronized (session) {
+                    out.writeByte(session.play(x, y) ? ShardProtocol.OK : ShardProtocol.REJECTED);
+                    out.writeByte(session.getState().ordinal());
+                }
+            }
+            case ShardProtocol.GET -> {
+                long gameId = in.readLong();
+                GameSession session = sessions.get(gameId);
+                if (session == null) {
+                    out.writeByte(ShardProtocol.NOT_FOUND);
+                    return;
+                }
+                out.writeByte(ShardProtocol.OK);
+                synchronized (session) {
+                    SessionSnapshot.write(out, session);
+                }
+            }
+            case ShardProtocol.REMOVE -> {
+                long gameId = in.readLong();
+                out.writeByte(sessions.remove(gameId) != null ? ShardProtocol.OK : ShardProtocol.NOT_FOUND);
+            }
+            case ShardProtocol.LIST -> {
+                long from = in.readLong();
+                long to = in.readLong();
+                long[] ids = sessions.keySet().stream().mapToLong(Long::longValue)
+                        .filter(id -> ConsistentHashRing.inArc(ConsistentHashRing.positionOf(id), from, to))
+                        .toArray();
+                out.writeByte(ShardProtocol.OK);
+                out.writeInt(ids.length);
+                for (long id : ids) {
+                    out.writeLong(id);
+                }
+            }
+            default -> throw new IOException(Constants.SHARD_PROTOCOL_ERROR_LABEL + command);
+        }
+    }
+
+    /**
+     * Возвращает порт, на котором узел принимает соединения.
+     *
+     * @return номер порта
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Возвращает число сессий на узле.
+     *
+     * @return число сессий
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Прекращает приём соединений.
+     *
+     * @throws IOException при ошибке закрытия сокета
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdownNow();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.gb.jdk.one.online.cluster;
+
+/**
+ * Двоичный протокол между маршрутизатором и узлом кластера.
+ * <p>
+ * Запрос — байт команды и её аргументы, ответ — байт статуса и данные. Сессии передаются
+ * снимками {@link ru.gb.jdk.one.online.session.SessionSnapshot}. Команды:
+ * <ul>
+ *     <li>{@link #PUT} снимок — сохранить новую сессию; ответ: статус</li>
+ *     <li>{@link #MOVE} id, x, y — сделать ход; ответ: статус и состояние игры</li>
+ *     <li>{@link #GET} id — прочитать сессию; ответ: статус и снимок</li>
+ *     <li>{@link #REMOVE} id — удалить сессию с узла (после её копирования на новый узел); ответ: статус</li>
+ *     <li>{@link #LIST} from, to — перечислить игры узла, лежащие на дуге кольца {@code (from, to]}
+ *     ({@link ConsistentHashRing#inArc}); ответ: статус, число и идентификаторы</li>
+ * </ul>
+ */
+public final class ShardProtocol {
+
+    /** Команда: сохранить новую сессию */
+    public static final byte PUT = 1;
+
+    /** Команда: сделать ход */
+    public static final byte MOVE = 2;
+
+    /** Команда: прочитать сессию */
+    public static final byte GET = 3;
+
+    /** Команда: удалить сессию с узла */
+    public static final byte REMOVE = 4;
+
+    /** Команда: перечислить игры узла */
+    public static final byte LIST = 5;
+
+    /** Статус: выполнено */
+    public static final byte OK = 0;
+
+    /** Статус: игры нет на узле */
+    public static final byte NOT_FOUND = 1;
+
+    /** Статус: ход отклонён (ячейка занята, вне поля или игра окончена) */
+    public static final byte REJECTED = 2;
+
+    /** Статус: игра уже существует */
+    public static final byte EXISTS = 3;
+
+    /** Строка, которой процесс узла сообщает о готовности, за ней следует номер порта */
+    public static final String READY_LINE = "READY";
+
+    private ShardProtocol() {
+    }
+}
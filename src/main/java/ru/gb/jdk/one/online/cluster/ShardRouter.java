@@ -0,0 +1,376 @@
+package ru.gb.jdk.one.online.cluster;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+import ru.gb.jdk.one.online.session.*;
+
+/**
+ * Маршрутизатор кластера: направляет команды игры на узел, выбранный
+ * {@link ConsistentHashRing} по идентификатору игры.
+ * <p>
+ * При добавлении и удалении узла сессии, сменившие владельца, переезжают снимками
+ * {@link SessionSnapshot} по одной дуге кольца за раз: точки узла добавляются (удаляются)
+ * по одной, игры дуги копируются на новый узел, затем кольцо переключается и только после
+ * подтверждённой записи копии игры удаляются со старого узла. При ошибке копирования
+ * дуга остаётся за старым узлом, и игры не теряются.
+ * </p>
+ * <p>
+ * Кольцо положений игр разбито на {@value #RANGES} диапазонов, у каждого своя блокировка:
+ * команда игры держит блокировку чтения своего диапазона, переезд дуги — блокировки записи
+ * только пересекающихся с ней диапазонов. Поэтому на время переезда приостанавливаются
+ * лишь команды переезжающих игр (и немногих соседних), остальные выполняются параллельно.
+ * Изменения состава кластера выполняются по одному.
+ * </p>
+ */
+public class ShardRouter implements AutoCloseable {
+
+    /** Число бит номера диапазона блокировок */
+    private static final int RANGE_BITS = 12;
+
+    /** Число диапазонов блокировок */
+    private static final int RANGES = 1 << RANGE_BITS;
+
+    /** Кольцо узлов */
+    private final ConsistentHashRing ring;
+
+    /** Клиенты узлов по идентификатору узла */
+    private final Map<String, ShardClient> clients = new HashMap<>();
+
+    /** Блокировка кольца и клиентов (удерживается только на время чтения или изменения) */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Блокировки диапазонов положений игр на кольце */
+    private final ReadWriteLock[] rangeLocks = new ReadWriteLock[RANGES];
+
+    /** Блокировка изменения состава кластера */
+    private final Lock membership = new ReentrantLock();
+
+    /**
+     * Создаёт маршрутизатор с числом виртуальных точек по умолчанию.
+     */
+    public ShardRouter() {
+        this(ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param virtualNodes число виртуальных точек на узел
+     */
+    public ShardRouter(int virtualNodes) {
+        this.ring = new ConsistentHashRing(virtualNodes);
+        for (int i = 0; i < RANGES; i++) {
+            rangeLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Добавляет узел и переносит на него игры, которые теперь ему принадлежат.
+     * <p>
+     * Если перенос прервался ошибкой, узел остаётся в кольце с уже перенесёнными дугами;
+     * {@link #removeNode} возвращает их прежним владельцам.
+     * </p>
+     *
+     * @param node    идентификатор узла
+     * @param address адрес узла
+     * @return число перенесённых игр
+     * @throws IllegalArgumentException если узел с таким идентификатором уже есть
+     */
+    public int addNode(String node, InetSocketAddress address) {
+        membership.lock();
+        try {
+            ShardClient target = new ShardClient(address);
+            lock.writeLock().lock();
+            try {
+                if (clients.putIfAbsent(node, target) != null) {
+                    target.close();
+                    throw new IllegalArgumentException(Constants.SHARD_NODE_EXISTS_LABEL + node);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            int moved = 0;
+            for (int replica = 0; replica < ring.getVirtualNodes(); replica++) {
+                int point = replica;
+                long to = ConsistentHashRing.pointOf(node, replica);
+                long from;
+                ShardClient source;
+                lock.readLock().lock();
+                try {
+                    if (ring.getNodes().isEmpty() || ring.hasPoint(node, replica)) {
+                        source = null;
+                        from = to;
+                    } else {
+                        String owner = ring.ownerOf(to);
+                        // Дуга уже принадлежит узлу: её игры переехали вместе с одной из его точек
+                        source = owner.equals(node) ? null : clients.get(owner);
+                        from = ring.previousPoint(to);
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                if (source == null) {
+                    setPoint(() -> ring.addPoint(node, point));
+                } else {
+                    moved += migrate(from, to, source, target, () -> ring.addPoint(node, point));
+                }
+            }
+            return moved;
+        } finally {
+            membership.unlock();
+        }
+    }
+
+    /**
+     * Удаляет узел, предварительно перенеся все его игры на оставшиеся узлы.
+     *
+     * @param node идентификатор узла
+     * @return число перенесённых игр
+     * @throws IllegalStateException если узел последний, а игры на нём есть
+     */
+    public int removeNode(String node) {
+        membership.lock();
+        try {
+            ShardClient leaving;
+            lock.readLock().lock();
+            try {
+                leaving = clients.get(node);
+                if (leaving == null) return 0;
+                // Дуга (0, 0] — всё кольцо
+                boolean last = ring.getNodes().size() == 1 && ring.getNodes().contains(node);
+                if (last && leaving.list(0, 0).length > 0) {
+                    throw new IllegalStateException(Constants.SHARD_NO_NODES_LABEL);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            int moved = 0;
+            for (int replica = 0; replica < ring.getVirtualNodes(); replica++) {
+                int point = replica;
+                long to = ConsistentHashRing.pointOf(node, replica);
+                long from = to;
+                ShardClient target = null;
+                lock.readLock().lock();
+                try {
+                    if (!ring.hasPoint(node, replica)) continue;
+                    String heir = ring.ownerAfter(to);
+                    // Дуга переходит к следующей точке того же узла: игры остаются на нём до её удаления
+                    if (!heir.equals(node)) {
+                        target = clients.get(heir);
+                        from = ring.previousPoint(to);
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                if (target == null) {
+                    setPoint(() -> ring.removePoint(node, point));
+                } else {
+                    moved += migrate(from, to, leaving, target, () -> ring.removePoint(node, point));
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                ring.remove(node);
+                clients.remove(node).close();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return moved;
+        } finally {
+            membership.unlock();
+        }
+    }
+
+    /**
+     * Создаёт игру на узле-владельце.
+     *
+     * @param gameId идентификатор игры
+     * @param record запись партии без ходов
+     */
+    public void create(long gameId, GameRecord record) {
+        GameSession session = new GameSession(gameId, record);
+        Lock range = rangeLock(ConsistentHashRing.positionOf(gameId)).readLock();
+        range.lock();
+        try {
+            clientFor(gameId).put(session);
+        } finally {
+            range.unlock();
+        }
+    }
+
+    /**
+     * Делает ход в игре на узле-владельце.
+     *
+     * @param gameId идентификатор игры
+     * @param x      координата X
+     * @param y      координата Y
+     * @return состояние игры после хода или {@code null}, если ход отклонён
+     */
+    public Enums.GameState move(long gameId, int x, int y) {
+        Lock range = rangeLock(ConsistentHashRing.positionOf(gameId)).readLock();
+        range.lock();
+        try {
+            return clientFor(gameId).move(gameId, x, y);
+        } finally {
+            range.unlock();
+        }
+    }
+
+    /**
+     * Читает сессию с узла-владельца.
+     *
+     * @param gameId идентификатор игры
+     * @return копия сессии
+     */
+    public GameSession get(long gameId) {
+        Lock range = rangeLock(ConsistentHashRing.positionOf(gameId)).readLock();
+        range.lock();
+        try {
+            return clientFor(gameId).get(gameId);
+        } finally {
+            range.unlock();
+        }
+    }
+
+    /**
+     * Возвращает узел-владелец игры.
+     *
+     * @param gameId идентификатор игры
+     * @return идентификатор узла
+     */
+    public String nodeFor(long gameId) {
+        lock.readLock().lock();
+        try {
+            return ring.nodeFor(gameId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Переносит игры дуги {@code (from, to]} и переключает кольцо.
+     * <p>
+     * Под блокировками записи диапазонов дуги игры копируются на новый узел ({@code get} и {@code put}),
+     * затем кольцо переключается, и только потом игры удаляются со старого узла. Если копирование
+     * не удалось, уже сделанные копии удаляются, кольцо не меняется, ошибка пробрасывается.
+     * </p>
+     *
+     * @param from   начало дуги (не входит)
+     * @param to     конец дуги (входит)
+     * @param source прежний владелец
+     * @param target новый владелец
+     * @param flip   изменение кольца, передающее дугу новому владельцу
+     * @return число перенесённых игр
+     */
+    private int migrate(long from, long to, ShardClient source, ShardClient target, Runnable flip) {
+        int first = rangeOf(from);
+        int count = from < to ? rangeOf(to) - first + 1 : RANGES - first + rangeOf(to) + 1;
+        if (count >= RANGES) {
+            first = 0;
+            count = RANGES;
+        }
+        for (int i = 0; i < count; i++) {
+            rangeLocks[(first + i) & (RANGES - 1)].writeLock().lock();
+        }
+        try {
+            long[] ids = source.list(from, to);
+            int copied = 0;
+            try {
+                for (long gameId : ids) {
+                    target.put(source.get(gameId));
+                    copied++;
+                }
+            } catch (RuntimeException e) {
+                for (int i = 0; i < copied; i++) {
+                    try {
+                        target.remove(ids[i]);
+                    } catch (RuntimeException removeError) {
+                        e.addSuppressed(removeError);
+                    }
+                }
+                throw e;
+            }
+            setPoint(flip);
+            for (long gameId : ids) {
+                source.remove(gameId);
+            }
+            return ids.length;
+        } finally {
+            for (int i = 0; i < count; i++) {
+                rangeLocks[(first + i) & (RANGES - 1)].writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Изменяет кольцо под блокировкой записи.
+     *
+     * @param change изменение
+     */
+    private void setPoint(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает клиента узла-владельца игры.
+     *
+     * @param gameId идентификатор игры
+     * @return клиент узла
+     */
+    private ShardClient clientFor(long gameId) {
+        lock.readLock().lock();
+        try {
+            return clients.get(ring.nodeFor(gameId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает блокировку диапазона, в котором лежит положение на кольце.
+     *
+     * @param position положение на кольце
+     * @return блокировка диапазона
+     */
+    private ReadWriteLock rangeLock(long position) {
+        return rangeLocks[rangeOf(position)];
+    }
+
+    /**
+     * Вычисляет номер диапазона положения. Порядок номеров совпадает с порядком точек кольца
+     * (сравнение {@code long} со знаком), поэтому дуга — это непрерывный по кругу ряд диапазонов.
+     *
+     * @param position положение на кольце
+     * @return номер диапазона
+     */
+    private static int rangeOf(long position) {
+        return (int) ((position ^ Long.MIN_VALUE) >>> (Long.SIZE - RANGE_BITS));
+    }
+
+    /**
+     * Закрывает соединения со всеми узлами.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            clients.values().forEach(ShardClient::close);
+            clients.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
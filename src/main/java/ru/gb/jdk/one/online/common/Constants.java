@@ -22,6 +22,9 @@ public class Constants {
     /** Максимальный размер игрового поля */
     public static final int FIELD_SIZE_MAX = 10;
 
+    /** Число пустых ячеек, начиная с которого компьютер решает игру точным перебором */
+    public static final int ENDGAME_EMPTY_CELLS = 12;
+
     /** Название шрифта для сообщений */
     public static final String FONT_OF_MESSAGES = "Times New Roman";
 
@@ -49,6 +52,81 @@ public class Constants {
     /** Сообщение об ошибке при недопустимом значении в ячейке */
     public static final String ERROR_VALUE_IN_CELL_LABEL = "Недопустимое значение в ячейке";
 
+    /** Сообщение об ошибке при поиске хода компьютера */
+    public static final String AI_ERROR_LABEL = "Ошибка при поиске хода компьютера";
+
+    /** Сообщение об ошибке при недопустимой длине победной последовательности */
+    public static final String WIN_LENGTH_ERROR_LABEL = "Недопустимая длина для победы: ";
+
+    /** Сообщение об ошибке, если победные линии есть у обоих игроков */
+    public static final String BOTH_SIDES_WIN_LABEL = "Недопустимая позиция: победные линии у обоих игроков";
+
+    /** Сообщение об ошибке при разборе записи партии */
+    public static final String GAME_RECORD_ERROR_LABEL = "Неверный формат записи партии: ";
+
+    /** Сообщение об ошибке при сохранении недопустимой сессии */
+    public static final String SESSION_ERROR_LABEL = "Недопустимая игровая сессия: ";
+
+    /** Сообщение об ошибке при переполнении хранилища сессий */
+    public static final String SESSION_STORE_FULL_LABEL = "Хранилище сессий заполнено, максимум игр: ";
+
+    /** Сообщение об ошибке, если игры нет на узле кластера */
+    public static final String SHARD_GAME_NOT_FOUND_LABEL = "Игра не найдена на узле: ";
+
+    /** Сообщение об ошибке, если игра с таким идентификатором уже есть на узле */
+    public static final String SHARD_GAME_EXISTS_LABEL = "Игра уже существует на узле: ";
+
+    /** Сообщение об ошибке при неизвестной команде или ответе узла кластера */
+    public static final String SHARD_PROTOCOL_ERROR_LABEL = "Неверное сообщение протокола узла: ";
+
+    /** Сообщение об ошибке, если в кластере нет узлов */
+    public static final String SHARD_NO_NODES_LABEL = "В кластере нет узлов";
+
+    /** Сообщение об ошибке при добавлении узла с уже занятым идентификатором */
+    public static final String SHARD_NODE_EXISTS_LABEL = "Узел уже есть в кластере: ";
+
+    /** Сообщение об ошибке приёма соединений узлом кластера (узел закрывается) */
+    public static final String SHARD_ACCEPT_ERROR_LABEL = "Ошибка приёма соединений, узел закрыт, порт: ";
+
+    /** Предупреждение о неизвестном значении свойства выбора реализации просмотра линий */
+    public static final String SCANNER_PROPERTY_ERROR_LABEL =
+            "Неизвестная реализация просмотра линий, используется автоматический выбор: ";
+
+    /** Сообщение о том, что Vector API недоступен */
+    public static final String VECTOR_UNAVAILABLE_LABEL =
+            "Модуль jdk.incubator.vector не загружен, векторный просмотр линий недоступен";
+
+    /** Сообщение об ошибке при открытии повреждённого файла индекса позиций */
+    public static final String POSITION_INDEX_ERROR_LABEL = "Повреждён файл индекса позиций: ";
+
+    /** Сообщение об ошибке фонового анализа позиции */
+    public static final String ANALYSIS_ERROR_LABEL = "Ошибка фонового анализа позиции";
+
+    /** Сообщение об ошибке в файле весов или размерах нейросети */
+    public static final String NEURAL_NET_ERROR_LABEL = "Неверные веса или размер нейросети: ";
+
+    /** Предупреждение о том, что файл весов нейросети не загружен и играет стандартная стратегия */
+    public static final String NEURAL_NET_FALLBACK_LABEL =
+            "Не удалось загрузить нейросеть, компьютер играет стандартной стратегией: ";
+
+    /** Системное свойство с путём к файлу весов нейросети; если задано, компьютер играет нейросетью */
+    public static final String NEURAL_NET_PROPERTY = "tictactoe.net";
+
+    /** Системное свойство, задающее зерно генератора случайных чисел новой игры */
+    public static final String SEED_PROPERTY = "tictactoe.seed";
+
+    /** Срок, за который компьютер должен выбрать ход, мс */
+    public static final long AI_MOVE_DEADLINE_MS = 2_000;
+
+    /** Индикатор того, что компьютер ищет ход */
+    public static final String AI_THINKING_LABEL = "Компьютер думает";
+
+    /** Заголовок индикатора анализа позиции (далее — глубина перебора) */
+    public static final String ANALYSIS_DEPTH_LABEL = "Анализ, глубина ";
+
+    /** Подсказка для флажка анализа позиции */
+    public static final String ANALYSIS_TOOLTIP = "Подсветка клеток по оценке хода; только для игры двух игроков";
+
     /** Подсказка для режима "Человек против компьютера" */
     public static final String GAME_MODE_HVA_TOOLTIP = "Вы играете против компьютера";
 
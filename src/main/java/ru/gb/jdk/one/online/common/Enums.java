@@ -43,6 +43,7 @@ public class Enums {
         FIELD_SIZE_LABEL("Выберите размеры поля"),
         WIN_LENGTH_LABEL("Выберите длину для победы"),
         START_BUTTON("Начать новую игру"),
+        ANALYSIS_CHECKBOX("Анализ ходов"),
         ERROR_TITLE("Ошибка настроек"),
         ERROR_MESSAGE("Длина для победы не может быть больше размера поля");
 
@@ -0,0 +1,100 @@
+package ru.gb.jdk.one.online.index;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Дебютная книга по архиву партий: ход ведёт в позицию, в которой игрок чаще всего набирал очки.
+ * <p>
+ * Для каждой пустой ячейки ищется позиция после хода в {@link PositionIndex}. Учитываются только
+ * позиции, встречавшиеся не менее чем в {@code minGames} партиях; если таких нет (книга кончилась),
+ * ход выбирает запасная стратегия. Срочный выигрыш или защита от него проверяются до обращения к книге.
+ * </p>
+ */
+public class OpeningBookStrategy implements MoveStrategy {
+
+    /** Наименьшее число партий по умолчанию, при котором позиции из книги доверяют */
+    public static final int DEFAULT_MIN_GAMES = 20;
+
+    /** Индекс позиций */
+    private final PositionIndex index;
+
+    /** Стратегия после выхода из книги */
+    private final MoveStrategy fallback;
+
+    /** Наименьшее число партий, при котором позиции из книги доверяют */
+    private final int minGames;
+
+    /**
+     * Конструктор с порогом по умолчанию {@link #DEFAULT_MIN_GAMES}.
+     *
+     * @param index    индекс позиций
+     * @param fallback стратегия после выхода из книги
+     */
+    public OpeningBookStrategy(PositionIndex index, MoveStrategy fallback) {
+        this(index, fallback, DEFAULT_MIN_GAMES);
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param index    индекс позиций
+     * @param fallback стратегия после выхода из книги
+     * @param minGames наименьшее число партий, при котором позиции из книги доверяют
+     */
+    public OpeningBookStrategy(PositionIndex index, MoveStrategy fallback, int minGames) {
+        this.index = index;
+        this.fallback = fallback;
+        this.minGames = minGames;
+    }
+
+    @Override
+    public Move chooseMove(int[][] field, int winLen, int dot) {
+        Move move = bookMove(field, winLen, dot);
+        return move != null ? move : fallback.chooseMove(field, winLen, dot);
+    }
+
+    @Override
+    public Move chooseMove(int[][] field, int winLen, int dot, long deadlineNanos) {
+        Move move = bookMove(field, winLen, dot);
+        return move != null ? move : fallback.chooseMove(field, winLen, dot, deadlineNanos);
+    }
+
+    @Override
+    public Move chooseFallbackMove(int[][] field, int winLen, int dot) {
+        Move move = bookMove(field, winLen, dot);
+        return move != null ? move : fallback.chooseFallbackMove(field, winLen, dot);
+    }
+
+    /**
+     * Выбирает ход по книге.
+     *
+     * @param field  копия игрового поля
+     * @param winLen длина победной последовательности
+     * @param dot    значение ходящего игрока
+     * @return лучший ход по книге или {@code null}, если книга не знает позицию
+     */
+    private Move bookMove(int[][] field, int winLen, int dot) {
+        if (WinBlockStrategy.findWinMove(field, winLen, dot) != null
+                || WinBlockStrategy.findWinMove(field, winLen, GameRules.opponent(dot)) != null) {
+            return null;
+        }
+        Move best = null;
+        double bestScore = -1;
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < field[y].length; x++) {
+                if (field[y][x] != Enums.Dot.EMPTY.getValue()) continue;
+                field[y][x] = dot;
+                PositionIndex.Stats stats = index.find(field, winLen);
+                field[y][x] = Enums.Dot.EMPTY.getValue();
+                if (stats == null || stats.games() < minGames) continue;
+                double score = stats.scoreFor(dot);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = new Move(x, y);
+                }
+            }
+        }
+        return best;
+    }
+}
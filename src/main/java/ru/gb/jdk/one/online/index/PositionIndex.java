@@ -0,0 +1,275 @@
+package ru.gb.jdk.one.online.index;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Индекс позиций архива партий, отображённый в память только для чтения.
+ * <p>
+ * Файл строит {@link PositionIndexBuilder}. Формат (big-endian):
+ * <ul>
+ *     <li>заголовок: {@link #MAGIC}, число ключей, число записей списков (по 8 байт);</li>
+ *     <li>ключи, отсортированные по каноническому хешу ({@link CanonicalHash}), по 32 байта:
+ *     хеш, номер первой записи списка, длина списка, победы первого игрока, победы второго, ничьи;</li>
+ *     <li>списки записей по 8 байт: игра, номер хода и исход партии ({@link #pack}).</li>
+ * </ul>
+ * Поиск позиции — двоичный поиск по ключам прямо в отображённом файле; страницы подгружает
+ * операционная система, поэтому индекс может быть больше кучи и оперативной памяти.
+ * Экземпляр потокобезопасен.
+ * </p>
+ */
+public class PositionIndex implements AutoCloseable {
+
+    /** Сигнатура файла индекса */
+    public static final long MAGIC = 0x504F_5349_4458_3031L;
+
+    /** Размер заголовка, байт */
+    public static final int HEADER_BYTES = 3 * Long.BYTES;
+
+    /** Размер ключа, байт */
+    static final int KEY_BYTES = 2 * Long.BYTES + 4 * Integer.BYTES;
+
+    /** Число бит под исход партии в записи списка */
+    private static final int STATE_BITS = 2;
+
+    /** Число бит под номер хода в записи списка */
+    private static final int PLY_BITS = 11;
+
+    /** Длинное целое в порядке байт файла */
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.BIG_ENDIAN);
+
+    /** Целое в порядке байт файла */
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.BIG_ENDIAN);
+
+    /** Область отображения */
+    private final Arena arena;
+
+    /** Отображённый файл */
+    private final MemorySegment segment;
+
+    /** Число ключей */
+    private final long keyCount;
+
+    /** Число записей списков */
+    private final long postingCount;
+
+    /** Смещение начала списков */
+    private final long postingsOffset;
+
+    /**
+     * Статистика позиции.
+     *
+     * @param hash      канонический хеш позиции
+     * @param games     число партий, прошедших через позицию
+     * @param humanWins победы первого игрока ({@link Enums.Dot#HUMAN})
+     * @param aiWins    победы второго игрока ({@link Enums.Dot#AI})
+     * @param draws     ничьи
+     */
+    public record Stats(long hash, int games, int humanWins, int aiWins, int draws) {
+
+        /**
+         * Возвращает долю очков игрока в завершённых партиях (победа — 1, ничья — ½).
+         *
+         * @param dot значение игрока
+         * @return доля очков от 0 до 1 или 0,5, если завершённых партий нет
+         */
+        public double scoreFor(int dot) {
+            int finished = humanWins + aiWins + draws;
+            if (finished == 0) return 0.5;
+            int wins = dot == Enums.Dot.HUMAN.getValue() ? humanWins : aiWins;
+            return (wins + draws * 0.5) / finished;
+        }
+    }
+
+    /**
+     * Запись списка: партия, прошедшая через позицию.
+     *
+     * @param gameId идентификатор партии
+     * @param ply    число сделанных ходов в позиции
+     * @param state  исход партии
+     */
+    public record Posting(long gameId, int ply, Enums.GameState state) {
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param arena   область отображения
+     * @param segment отображённый файл
+     */
+    private PositionIndex(Arena arena, MemorySegment segment) {
+        this.arena = arena;
+        this.segment = segment;
+        if (segment.byteSize() < HEADER_BYTES || segment.get(LONG, 0) != MAGIC) {
+            arena.close();
+            throw new IllegalArgumentException(Constants.POSITION_INDEX_ERROR_LABEL + "signature");
+        }
+        this.keyCount = segment.get(LONG, Long.BYTES);
+        this.postingCount = segment.get(LONG, 2 * Long.BYTES);
+        this.postingsOffset = HEADER_BYTES + keyCount * KEY_BYTES;
+        if (postingsOffset + postingCount * Long.BYTES != segment.byteSize()) {
+            arena.close();
+            throw new IllegalArgumentException(Constants.POSITION_INDEX_ERROR_LABEL + "size");
+        }
+    }
+
+    /**
+     * Отображает файл индекса в память.
+     *
+     * @param file файл индекса
+     * @return индекс
+     * @throws IOException при ошибке открытия
+     */
+    public static PositionIndex open(Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new PositionIndex(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            if (arena.scope().isAlive()) arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ищет позицию по каноническому хешу.
+     *
+     * @param hash канонический хеш
+     * @return статистика позиции или {@code null}, если позиция не встречалась
+     */
+    public Stats find(long hash) {
+        long key = keyOffset(hash);
+        if (key < 0) return null;
+        return new Stats(hash, segment.get(INT, key + 2 * Long.BYTES), segment.get(INT, key + 2 * Long.BYTES + 4),
+                segment.get(INT, key + 2 * Long.BYTES + 8), segment.get(INT, key + 2 * Long.BYTES + 12));
+    }
+
+    /**
+     * Ищет позицию поля.
+     *
+     * @param field  игровое поле
+     * @param winLen длина победной последовательности
+     * @return статистика позиции или {@code null}, если позиция не встречалась
+     */
+    public Stats find(int[][] field, int winLen) {
+        return find(CanonicalHash.of(field, winLen));
+    }
+
+    /**
+     * Возвращает партии, прошедшие через позицию.
+     *
+     * @param hash  канонический хеш
+     * @param limit наибольшее число записей
+     * @return записи списка (пустой, если позиция не встречалась)
+     */
+    public List<Posting> postings(long hash, int limit) {
+        long key = keyOffset(hash);
+        List<Posting> result = new ArrayList<>();
+        if (key < 0) return result;
+        long first = segment.get(LONG, key + Long.BYTES);
+        int count = Math.min(limit, segment.get(INT, key + 2 * Long.BYTES));
+        for (int i = 0; i < count; i++) {
+            long packed = segment.get(LONG, postingsOffset + (first + i) * Long.BYTES);
+            result.add(new Posting(unpackGameId(packed), unpackPly(packed), unpackState(packed)));
+        }
+        return result;
+    }
+
+    /**
+     * Двоичный поиск ключа.
+     *
+     * @param hash канонический хеш
+     * @return смещение ключа или {@code -1}, если его нет
+     */
+    private long keyOffset(long hash) {
+        long lo = 0;
+        long hi = keyCount - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long offset = HEADER_BYTES + mid * KEY_BYTES;
+            long value = segment.get(LONG, offset);
+            if (value < hash) lo = mid + 1;
+            else if (value > hash) hi = mid - 1;
+            else return offset;
+        }
+        return -1;
+    }
+
+    /**
+     * Возвращает число различных позиций.
+     *
+     * @return число ключей
+     */
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Возвращает число записей (позиций во всех партиях).
+     *
+     * @return число записей
+     */
+    public long getPostingCount() {
+        return postingCount;
+    }
+
+    /**
+     * Снимает отображение файла.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Упаковывает запись списка.
+     *
+     * @param gameId идентификатор партии (до 2^51)
+     * @param ply    число сделанных ходов (до 2047)
+     * @param state  исход партии
+     * @return упакованная запись
+     */
+    static long pack(long gameId, int ply, Enums.GameState state) {
+        return gameId << (PLY_BITS + STATE_BITS) | (long) ply << STATE_BITS | state.getValue();
+    }
+
+    /**
+     * Извлекает идентификатор партии.
+     *
+     * @param packed упакованная запись
+     * @return идентификатор партии
+     */
+    static long unpackGameId(long packed) {
+        return packed >>> (PLY_BITS + STATE_BITS);
+    }
+
+    /**
+     * Извлекает номер хода.
+     *
+     * @param packed упакованная запись
+     * @return число сделанных ходов
+     */
+    static int unpackPly(long packed) {
+        return (int) (packed >>> STATE_BITS) & ((1 << PLY_BITS) - 1);
+    }
+
+    /**
+     * Извлекает исход партии.
+     *
+     * @param packed упакованная запись
+     * @return исход
+     */
+    static Enums.GameState unpackState(long packed) {
+        return Enums.GameState.values()[(int) packed & ((1 << STATE_BITS) - 1)];
+    }
+}
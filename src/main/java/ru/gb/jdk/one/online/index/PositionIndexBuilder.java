@@ -0,0 +1,386 @@
+package ru.gb.jdk.one.online.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Строит файл {@link PositionIndex} из архива партий за один потоковый проход с сортировкой слиянием.
+ * <p>
+ * Для каждого хода партии порождается запись (канонический хеш позиции, игра, ход, исход).
+ * Записи копятся в буфере фиксированного размера; заполненный буфер сортируется и сбрасывается
+ * на диск отдельным прогоном. В конце прогоны сливаются k-путевым слиянием в итоговый файл,
+ * при этом подсчитываются исходы по каждой позиции. Память ограничена размером буфера
+ * независимо от размера архива. Экземпляр не потокобезопасен и используется один раз.
+ * </p>
+ */
+public class PositionIndexBuilder {
+
+    /** Размер буфера по умолчанию, записей (64 МБ) */
+    public static final int DEFAULT_RUN_ENTRIES = 1 << 22;
+
+    /** Каталог для временных файлов */
+    private final Path tempDir;
+
+    /** Хеши позиций буфера */
+    private final long[] hashes;
+
+    /** Упакованные игра, ход и исход буфера ({@link PositionIndex#pack}) */
+    private final long[] payloads;
+
+    /** Число записей в буфере */
+    private int size;
+
+    /** Сброшенные на диск прогоны */
+    private final List<Path> runs = new ArrayList<>();
+
+    /** Канонические хеши позиций текущей партии */
+    private final long[] gameHashes = new long[ZobristHash.MAX_CELLS];
+
+    /** Число добавленных партий */
+    private long games;
+
+    /**
+     * Создаёт построитель с буфером по умолчанию.
+     *
+     * @param tempDir каталог для временных файлов
+     */
+    public PositionIndexBuilder(Path tempDir) {
+        this(tempDir, DEFAULT_RUN_ENTRIES);
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param tempDir    каталог для временных файлов
+     * @param runEntries размер буфера, записей
+     */
+    public PositionIndexBuilder(Path tempDir, int runEntries) {
+        this.tempDir = tempDir;
+        this.hashes = new long[runEntries];
+        this.payloads = new long[runEntries];
+    }
+
+    /**
+     * Добавляет партии архива: по одной записи {@link GameRecord} в строке,
+     * идентификатор партии — номер строки, начиная с 0.
+     *
+     * @param archive файл архива
+     * @throws IOException при ошибке чтения или записи прогона
+     */
+    public void addArchive(Path archive) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(archive)) {
+            String line;
+            long gameId = 0;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) addGame(gameId, GameRecord.parse(line));
+                gameId++;
+            }
+        }
+    }
+
+    /**
+     * Добавляет партию: повторяет её ходы, определяет исход и записывает все позиции.
+     *
+     * @param gameId идентификатор партии
+     * @param record запись партии
+     * @throws IOException при ошибке записи прогона
+     */
+    public void addGame(long gameId, GameRecord record) throws IOException {
+        int sizeX = record.getSizeX();
+        int sizeY = record.getSizeY();
+        int winLen = record.getWinLen();
+        int[][] field = new int[sizeY][sizeX];
+        CanonicalHash hash = new CanonicalHash(sizeX, sizeY, winLen);
+        Enums.GameState state = Enums.GameState.GAME;
+        int dot = Enums.Dot.HUMAN.getValue();
+        int plies = record.size();
+        for (int ply = 0; ply < plies; ply++) {
+            Move move = record.getMove(ply);
+            field[move.y()][move.x()] = dot;
+            hash.toggle(move.x(), move.y(), dot);
+            gameHashes[ply] = hash.value();
+            if (GameRules.isWinningMove(field, winLen, move.x(), move.y(), dot)) {
+                state = dot == Enums.Dot.HUMAN.getValue() ? Enums.GameState.WIN_HUMAN : Enums.GameState.WIN_AI;
+            } else if (ply == sizeX * sizeY - 1) {
+                state = Enums.GameState.DRAW;
+            }
+            dot = GameRules.opponent(dot);
+        }
+        // Исход известен только в конце партии, поэтому позиции выписываются после повтора
+        for (int ply = 0; ply < plies; ply++) {
+            if (size == hashes.length) spill();
+            hashes[size] = gameHashes[ply];
+            payloads[size] = PositionIndex.pack(gameId, ply + 1, state);
+            size++;
+        }
+        games++;
+    }
+
+    /**
+     * Сливает прогоны и записывает итоговый индекс.
+     *
+     * @param out файл индекса
+     * @throws IOException при ошибке ввода-вывода
+     */
+    public void build(Path out) throws IOException {
+        if (size > 0) spill();
+        Path keysFile = Files.createTempFile(tempDir, "keys", ".tmp");
+        Path postingsFile = Files.createTempFile(tempDir, "postings", ".tmp");
+        long keyCount = 0;
+        long postingCount = 0;
+        PriorityQueue<RunReader> queue = new PriorityQueue<>();
+        try (DataOutputStream keys = open(keysFile); DataOutputStream postings = open(postingsFile)) {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.advance()) queue.add(reader);
+                else reader.close();
+            }
+            boolean open = false;
+            long currentHash = 0;
+            long first = 0;
+            int[] counts = new int[Enums.GameState.values().length];
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                if (!open || reader.hash != currentHash) {
+                    if (open) {
+                        writeKey(keys, currentHash, first, postingCount, counts);
+                        keyCount++;
+                    }
+                    open = true;
+                    currentHash = reader.hash;
+                    first = postingCount;
+                    Arrays.fill(counts, 0);
+                }
+                postings.writeLong(reader.payload);
+                counts[PositionIndex.unpackState(reader.payload).getValue()]++;
+                postingCount++;
+                if (reader.advance()) queue.add(reader);
+                else reader.close();
+            }
+            if (open) {
+                writeKey(keys, currentHash, first, postingCount, counts);
+                keyCount++;
+            }
+        } finally {
+            for (RunReader reader : queue) {
+                reader.close();
+            }
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+
+        try (FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(PositionIndex.HEADER_BYTES)
+                    .putLong(PositionIndex.MAGIC).putLong(keyCount).putLong(postingCount).flip();
+            while (header.hasRemaining()) {
+                target.write(header);
+            }
+            append(target, keysFile);
+            append(target, postingsFile);
+        } finally {
+            Files.deleteIfExists(keysFile);
+            Files.deleteIfExists(postingsFile);
+        }
+    }
+
+    /**
+     * Возвращает число добавленных партий.
+     *
+     * @return число партий
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Записывает ключ индекса: хеш, первая запись списка, длина списка и счётчики исходов.
+     *
+     * @param keys   поток ключей
+     * @param hash   канонический хеш позиции
+     * @param first  номер первой записи списка
+     * @param end    номер записи за последней
+     * @param counts счётчики исходов по {@link Enums.GameState#getValue()}
+     * @throws IOException при ошибке записи
+     */
+    private static void writeKey(DataOutputStream keys, long hash, long first, long end, int[] counts)
+            throws IOException {
+        keys.writeLong(hash);
+        keys.writeLong(first);
+        keys.writeInt((int) (end - first));
+        keys.writeInt(counts[Enums.GameState.WIN_HUMAN.getValue()]);
+        keys.writeInt(counts[Enums.GameState.WIN_AI.getValue()]);
+        keys.writeInt(counts[Enums.GameState.DRAW.getValue()]);
+    }
+
+    /**
+     * Сортирует буфер и сбрасывает его на диск прогоном.
+     *
+     * @throws IOException при ошибке записи
+     */
+    private void spill() throws IOException {
+        sort(0, size - 1);
+        Path run = Files.createTempFile(tempDir, "run", ".tmp");
+        try (DataOutputStream out = open(run)) {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(hashes[i]);
+                out.writeLong(payloads[i]);
+            }
+        }
+        runs.add(run);
+        size = 0;
+    }
+
+    /**
+     * Быстрая сортировка буфера по паре (хеш, упакованные данные).
+     *
+     * @param lo нижняя граница (включительно)
+     * @param hi верхняя граница (включительно)
+     */
+    private void sort(int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long pivotHash = hashes[mid];
+            long pivotPayload = payloads[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (compare(hashes[i], payloads[i], pivotHash, pivotPayload) < 0) i++;
+                while (compare(hashes[j], payloads[j], pivotHash, pivotPayload) > 0) j--;
+                if (i <= j) {
+                    long h = hashes[i];
+                    hashes[i] = hashes[j];
+                    hashes[j] = h;
+                    long p = payloads[i];
+                    payloads[i] = payloads[j];
+                    payloads[j] = p;
+                    i++;
+                    j--;
+                }
+            }
+            // Рекурсия по меньшей части, цикл по большей — глубина стека O(log n)
+            if (j - lo < hi - i) {
+                sort(lo, j);
+                lo = i;
+            } else {
+                sort(i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    /**
+     * Сравнивает записи по хешу, затем по упакованным данным.
+     *
+     * @param hashA    хеш первой записи
+     * @param payloadA данные первой записи
+     * @param hashB    хеш второй записи
+     * @param payloadB данные второй записи
+     * @return результат сравнения
+     */
+    private static int compare(long hashA, long payloadA, long hashB, long payloadB) {
+        int byHash = Long.compare(hashA, hashB);
+        return byHash != 0 ? byHash : Long.compare(payloadA, payloadB);
+    }
+
+    /**
+     * Открывает буферизованный поток записи в файл.
+     *
+     * @param file файл
+     * @return поток
+     * @throws IOException при ошибке открытия
+     */
+    private static DataOutputStream open(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+    }
+
+    /**
+     * Дописывает содержимое файла в канал.
+     *
+     * @param target канал итогового файла
+     * @param file   дописываемый файл
+     * @throws IOException при ошибке ввода-вывода
+     */
+    private static void append(FileChannel target, Path file) throws IOException {
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            long length = source.size();
+            while (position < length) {
+                position += source.transferTo(position, length - position, target);
+            }
+        }
+    }
+
+    /**
+     * Последовательное чтение одного прогона при слиянии.
+     */
+    private static final class RunReader implements Comparable<RunReader> {
+
+        /** Поток чтения прогона */
+        private final DataInputStream in;
+
+        /** Хеш текущей записи */
+        private long hash;
+
+        /** Данные текущей записи */
+        private long payload;
+
+        /**
+         * Открывает прогон.
+         *
+         * @param run файл прогона
+         * @throws IOException при ошибке открытия
+         */
+        private RunReader(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+        }
+
+        /**
+         * Читает следующую запись.
+         *
+         * @return {@code false} если прогон закончился
+         * @throws IOException при ошибке чтения
+         */
+        private boolean advance() throws IOException {
+            try {
+                hash = in.readLong();
+                payload = in.readLong();
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Закрывает прогон.
+         *
+         * @throws IOException при ошибке закрытия
+         */
+        private void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            return compare(hash, payload, other.hash, other.payload);
+        }
+    }
+}
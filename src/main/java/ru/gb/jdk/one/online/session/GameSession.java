@@ -0,0 +1,150 @@
+package ru.gb.jdk.one.online.session;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Игровая сессия на сервере: поле, запись партии и состояние игры.
+ * <p>
+ * Существует в куче только пока сессия активно обрабатывается; в остальное время
+ * хранится в компактном виде в {@link SessionStore}.
+ * </p>
+ */
+public class GameSession {
+
+    /** Идентификатор игры */
+    private final long gameId;
+
+    /** Запись партии (параметры, зерно и ходы) */
+    private final GameRecord record;
+
+    /** Игровое поле */
+    private final int[][] field;
+
+    /** Состояние игры */
+    private Enums.GameState state = Enums.GameState.GAME;
+
+    /**
+     * Создаёт новую сессию с пустым полем.
+     *
+     * @param gameId идентификатор игры
+     * @param record запись партии без ходов
+     */
+    public GameSession(long gameId, GameRecord record) {
+        this.gameId = gameId;
+        this.record = record;
+        this.field = new int[record.getSizeY()][record.getSizeX()];
+    }
+
+    /**
+     * Создаёт сессию с готовым полем и состоянием (без повторения ходов).
+     *
+     * @param gameId идентификатор игры
+     * @param record запись партии
+     * @param field  поле, соответствующее записи
+     * @param state  состояние игры
+     */
+    GameSession(long gameId, GameRecord record, int[][] field, Enums.GameState state) {
+        this.gameId = gameId;
+        this.record = record;
+        this.field = field;
+        this.state = state;
+    }
+
+    /**
+     * Восстанавливает сессию по записи партии, повторяя все её ходы.
+     *
+     * @param gameId идентификатор игры
+     * @param record запись партии
+     * @return сессия в состоянии после последнего хода
+     */
+    public static GameSession restore(long gameId, GameRecord record) {
+        GameSession session = new GameSession(gameId, new GameRecord(record.getMode(), record.getSizeX(),
+                record.getSizeY(), record.getWinLen(), record.getSeed()));
+        for (int ply = 0; ply < record.size(); ply++) {
+            Move move = record.getMove(ply);
+            session.play(move.x(), move.y(), record.isFallback(ply));
+        }
+        return session;
+    }
+
+    /**
+     * Делает ход за игрока, чья сейчас очередь, и обновляет состояние игры.
+     *
+     * @param x координата X
+     * @param y координата Y
+     * @return {@code true} если ход сделан; {@code false} если ячейка занята, вне поля или игра окончена
+     */
+    public boolean play(int x, int y) {
+        return play(x, y, false);
+    }
+
+    /**
+     * Делает ход за игрока, чья сейчас очередь, с отметкой о том, как он выбран.
+     *
+     * @param x        координата X
+     * @param y        координата Y
+     * @param fallback {@code true} если ход выбран запасной эвристикой ({@link GameRecord#isFallback})
+     * @return {@code true} если ход сделан; {@code false} если ячейка занята, вне поля или игра окончена
+     */
+    public boolean play(int x, int y, boolean fallback) {
+        if (state != Enums.GameState.GAME || !GameRules.isValidCell(field, x, y)
+                || field[y][x] != Enums.Dot.EMPTY.getValue()) {
+            return false;
+        }
+        int dot = currentDot();
+        field[y][x] = dot;
+        record.add(x, y, fallback);
+        if (GameRules.isWinningMove(field, record.getWinLen(), x, y, dot)) {
+            state = dot == Enums.Dot.HUMAN.getValue() ? Enums.GameState.WIN_HUMAN : Enums.GameState.WIN_AI;
+        } else if (GameRules.isFull(field)) {
+            state = Enums.GameState.DRAW;
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает значение игрока, чья сейчас очередь (первым ходит человек).
+     *
+     * @return значение игрока
+     */
+    public int currentDot() {
+        return record.size() % 2 == 0 ? Enums.Dot.HUMAN.getValue() : Enums.Dot.AI.getValue();
+    }
+
+    /**
+     * Возвращает идентификатор игры.
+     *
+     * @return идентификатор
+     */
+    public long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Возвращает запись партии.
+     *
+     * @return запись партии
+     */
+    public GameRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * Возвращает игровое поле.
+     *
+     * @return поле (изменять напрямую нельзя, только через {@link #play})
+     */
+    public int[][] getField() {
+        return field;
+    }
+
+    /**
+     * Возвращает состояние игры.
+     *
+     * @return состояние игры
+     */
+    public Enums.GameState getState() {
+        return state;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.gb.jdk.one.online.session;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Компактный двоичный снимок игровой сессии для передачи между процессами.
+ * <p>
+ * Формат: идентификатор игры и зерно (по 8 байт), ширина, высота, длина для победы,
+ * режим и состояние (по байту), число ходов (2 байта) и ходы как индексы ячеек (по 2 байта;
+ * у запасных ходов, {@link GameRecord#isFallback}, установлен старший бит).
+ * Поле не передаётся: оно восстанавливается по ходам (первым ходит человек) без
+ * повторной проверки правил, поэтому партия на 10×10 с 20 ходами занимает 63 байта.
+ * </p>
+ */
+public final class SessionSnapshot {
+
+    /** Размер заголовка снимка, байт */
+    public static final int HEADER_BYTES = 2 * Long.BYTES + 5 + Short.BYTES;
+
+    /** Бит запасного хода в индексе ячейки (индекс меньше {@link ZobristHash#MAX_CELLS}) */
+    static final int FALLBACK_BIT = 0x8000;
+
+    private SessionSnapshot() {
+    }
+
+    /**
+     * Записывает снимок сессии.
+     *
+     * @param out     поток записи
+     * @param session сессия
+     * @throws IOException при ошибке записи
+     */
+    public static void write(DataOutput out, GameSession session) throws IOException {
+        GameRecord record = session.getRecord();
+        int sizeX = record.getSizeX();
+        out.writeLong(session.getGameId());
+        out.writeLong(record.getSeed());
+        out.writeByte(sizeX);
+        out.writeByte(record.getSizeY());
+        out.writeByte(record.getWinLen());
+        out.writeByte(record.getMode().ordinal());
+        out.writeByte(session.getState().ordinal());
+        out.writeShort(record.size());
+        for (int ply = 0; ply < record.size(); ply++) {
+            Move move = record.getMove(ply);
+            out.writeShort(move.y() * sizeX + move.x() | (record.isFallback(ply) ? FALLBACK_BIT : 0));
+        }
+    }
+
+    /**
+     * Читает снимок сессии.
+     *
+     * @param in поток чтения
+     * @return восстановленная сессия
+     * @throws IOException при ошибке чтения или недопустимом снимке
+     */
+    public static GameSession read(DataInput in) throws IOException {
+        long gameId = in.readLong();
+        long seed = in.readLong();
+        int sizeX = in.readUnsignedByte();
+        int sizeY = in.readUnsignedByte();
+        int winLen = in.readUnsignedByte();
+        int modeOrdinal = in.readUnsignedByte();
+        int stateOrdinal = in.readUnsignedByte();
+        int moves = in.readUnsignedShort();
+        // Снимок приходит из другого процесса: заголовок проверяется до создания поля
+        if (sizeX == 0 || sizeY == 0 || sizeX * sizeY > ZobristHash.MAX_CELLS
+                || winLen == 0 || winLen > Math.max(sizeX, sizeY)
+                || modeOrdinal >= Enums.GameMode.values().length
+                || stateOrdinal >= Enums.GameState.values().length
+                || moves > sizeX * sizeY) {
+            throw new IOException(Constants.SESSION_ERROR_LABEL + gameId);
+        }
+        Enums.GameMode mode = Enums.GameMode.values()[modeOrdinal];
+        Enums.GameState state = Enums.GameState.values()[stateOrdinal];
+        GameRecord record = new GameRecord(mode, sizeX, sizeY, winLen, seed);
+        int[][] field = new int[sizeY][sizeX];
+        int dot = Enums.Dot.HUMAN.getValue();
+        for (int ply = 0; ply < moves; ply++) {
+            int packed = in.readUnsignedShort();
+            int cell = packed & ~FALLBACK_BIT;
+            int x = cell % sizeX;
+            int y = cell / sizeX;
+            if (y >= sizeY || field[y][x] != Enums.Dot.EMPTY.getValue()) {
+                throw new IOException(Constants.SESSION_ERROR_LABEL + gameId);
+            }
+            record.add(x, y, (packed & FALLBACK_BIT) != 0);
+            field[y][x] = dot;
+            dot = GameRules.opponent(dot);
+        }
+        return new GameSession(gameId, record, field, state);
+    }
+}
@@ -0,0 +1,332 @@
+package ru.gb.jdk.one.online.session;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Хранилище игровых сессий вне кучи на Foreign Function &amp; Memory API.
+ * <p>
+ * Все сессии лежат в одном {@link MemorySegment} из общей {@link Arena}: каждой игре
+ * отводится слот фиксированного размера (заголовок и ходы как индексы клеток по два байта,
+ * с отметкой запасного хода, как в {@link SessionSnapshot}).
+ * Поле не хранится: как и в {@link SessionSnapshot}, оно восстанавливается по ходам
+ * (первым ходит человек). Размеры и счётчики хранятся как беззнаковые. Освобождённые слоты связываются в список свободных: номер
+ * следующего свободного слота записывается прямо в начало освобождённого слота.
+ * Индекс «идентификатор игры → слот» — открытая адресация с линейным пробированием
+ * в двух отдельных сегментах (ключи и номера слотов).
+ * </p>
+ * <p>
+ * Для сборщика мусора хранилище — несколько объектов независимо от числа игр:
+ * объект {@link GameSession} создаётся только на время обработки хода
+ * ({@link #load}) и возвращается в хранилище через {@link #save}.
+ * Методы синхронизированы; память освобождается в {@link #close()}.
+ * </p>
+ */
+public class SessionStore implements AutoCloseable {
+
+    /** Смещение идентификатора игры в слоте (long) */
+    private static final long GAME_ID = 0;
+
+    /** Смещение зерна генератора случайных чисел (long) */
+    private static final long SEED = 8;
+
+    /** Смещение ширины поля (беззнаковый byte) */
+    private static final long SIZE_X = 16;
+
+    /** Смещение высоты поля (беззнаковый byte) */
+    private static final long SIZE_Y = 17;
+
+    /** Смещение длины для победы (беззнаковый byte) */
+    private static final long WIN_LEN = 18;
+
+    /** Смещение режима игры (byte) */
+    private static final long MODE = 19;
+
+    /** Смещение состояния игры (byte) */
+    private static final long STATE = 20;
+
+    /** Смещение числа ходов (беззнаковый short) */
+    private static final long MOVE_COUNT = 22;
+
+    /** Смещение ходов: индекс клетки на ход (беззнаковый short) */
+    private static final long MOVES = 24;
+
+    /** Наибольший размер стороны поля, помещающийся в беззнаковый байт */
+    private static final int MAX_SIDE = 0xFF;
+
+    /** Пустой ключ индекса; такой идентификатор игры недопустим */
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+    /** Арена, владеющая памятью хранилища */
+    private final Arena arena;
+
+    /** Слоты игр */
+    private final MemorySegment slots;
+
+    /** Ключи индекса: идентификаторы игр */
+    private final MemorySegment indexKeys;
+
+    /** Значения индекса: номера слотов */
+    private final MemorySegment indexSlots;
+
+    /** Максимальное число клеток поля */
+    private final int maxCells;
+
+    /** Размер слота в байтах */
+    private final long slotSize;
+
+    /** Максимальное число игр */
+    private final int maxGames;
+
+    /** Маска номера корзины индекса */
+    private final int indexMask;
+
+    /** Первый свободный слот из списка свободных ({@code -1} — список пуст) */
+    private int freeHead = -1;
+
+    /** Число слотов, которые хоть раз выдавались */
+    private int highWater;
+
+    /** Число хранимых игр */
+    private int size;
+
+    /**
+     * Создаёт хранилище.
+     *
+     * @param maxGames максимальное число одновременно хранимых игр
+     * @param maxCells максимальное число клеток поля одной игры (не больше {@link ZobristHash#MAX_CELLS})
+     * @throws IllegalArgumentException если число клеток вне допустимого диапазона
+     */
+    public SessionStore(int maxGames, int maxCells) {
+        if (maxCells <= 0 || maxCells > ZobristHash.MAX_CELLS) {
+            throw new IllegalArgumentException(Constants.SESSION_ERROR_LABEL + maxCells);
+        }
+        this.maxGames = maxGames;
+        this.maxCells = maxCells;
+        this.slotSize = align(MOVES + (long) maxCells * Short.BYTES, Long.BYTES);
+        int indexCapacity = Integer.highestOneBit(Math.max(1, maxGames * 2 - 1)) * 2;
+        this.indexMask = indexCapacity - 1;
+
+        arena = Arena.ofShared();
+        slots = arena.allocate(slotSize * maxGames, Long.BYTES);
+        indexKeys = arena.allocate((long) indexCapacity * Long.BYTES, Long.BYTES);
+        indexSlots = arena.allocate((long) indexCapacity * Integer.BYTES, Integer.BYTES);
+        for (int i = 0; i < indexCapacity; i++) {
+            indexKeys.setAtIndex(ValueLayout.JAVA_LONG, i, EMPTY_KEY);
+        }
+    }
+
+    /**
+     * Сохраняет сессию (новую или ранее загруженную).
+     *
+     * @param session сессия
+     * @throws IllegalArgumentException если поле игры больше допустимого или идентификатор недопустим
+     * @throws IllegalStateException    если хранилище заполнено
+     */
+    public synchronized void save(GameSession session) {
+        GameRecord record = session.getRecord();
+        int sizeX = record.getSizeX();
+        int sizeY = record.getSizeY();
+        if (sizeX > MAX_SIDE || sizeY > MAX_SIDE || sizeX * sizeY > maxCells
+                || record.getWinLen() > MAX_SIDE || session.getGameId() == EMPTY_KEY) {
+            throw new IllegalArgumentException(Constants.SESSION_ERROR_LABEL + session.getGameId());
+        }
+        int bucket = find(session.getGameId());
+        int slot;
+        if (indexKeys.getAtIndex(ValueLayout.JAVA_LONG, bucket) == EMPTY_KEY) {
+            slot = allocateSlot();
+            indexKeys.setAtIndex(ValueLayout.JAVA_LONG, bucket, session.getGameId());
+            indexSlots.setAtIndex(ValueLayout.JAVA_INT, bucket, slot);
+            size++;
+        } else {
+            slot = indexSlots.getAtIndex(ValueLayout.JAVA_INT, bucket);
+        }
+        write(slotSize * slot, session);
+    }
+
+    /**
+     * Загружает сессию в кучу для обработки.
+     *
+     * @param gameId идентификатор игры
+     * @return сессия или {@code null}, если игры нет
+     */
+    public synchronized GameSession load(long gameId) {
+        int bucket = find(gameId);
+        if (indexKeys.getAtIndex(ValueLayout.JAVA_LONG, bucket) == EMPTY_KEY) return null;
+        return read(slotSize * indexSlots.getAtIndex(ValueLayout.JAVA_INT, bucket));
+    }
+
+    /**
+     * Удаляет игру из хранилища.
+     *
+     * @param gameId идентификатор игры
+     * @return {@code true} если игра была в хранилище
+     */
+    public synchronized boolean remove(long gameId) {
+        int bucket = find(gameId);
+        if (indexKeys.getAtIndex(ValueLayout.JAVA_LONG, bucket) == EMPTY_KEY) return false;
+        int slot = indexSlots.getAtIndex(ValueLayout.JAVA_INT, bucket);
+        slots.set(ValueLayout.JAVA_INT, slotSize * slot, freeHead);
+        freeHead = slot;
+        size--;
+
+        // Удаление со сдвигом назад: следующие записи цепочки переезжают на освободившееся место
+        int hole = bucket;
+        int next = (hole + 1) & indexMask;
+        while (indexKeys.getAtIndex(ValueLayout.JAVA_LONG, next) != EMPTY_KEY) {
+            int home = home(indexKeys.getAtIndex(ValueLayout.JAVA_LONG, next));
+            if (((next - home) & indexMask) >= ((next - hole) & indexMask)) {
+                indexKeys.setAtIndex(ValueLayout.JAVA_LONG, hole, indexKeys.getAtIndex(ValueLayout.JAVA_LONG, next));
+                indexSlots.setAtIndex(ValueLayout.JAVA_INT, hole, indexSlots.getAtIndex(ValueLayout.JAVA_INT, next));
+                hole = next;
+            }
+            next = (next + 1) & indexMask;
+        }
+        indexKeys.setAtIndex(ValueLayout.JAVA_LONG, hole, EMPTY_KEY);
+        return true;
+    }
+
+    /**
+     * Возвращает число хранимых игр.
+     *
+     * @return число игр
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает объём памяти вне кучи в расчёте на одну игру при полном заполнении.
+     *
+     * @return байт на игру (слот и доля индекса)
+     */
+    public long bytesPerGame() {
+        return (slots.byteSize() + indexKeys.byteSize() + indexSlots.byteSize()) / maxGames;
+    }
+
+    /**
+     * Освобождает память хранилища.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Ищет корзину индекса с данным идентификатором или первую пустую корзину цепочки.
+     *
+     * @param gameId идентификатор игры
+     * @return номер корзины
+     */
+    private int find(long gameId) {
+        int bucket = home(gameId);
+        while (true) {
+            long key = indexKeys.getAtIndex(ValueLayout.JAVA_LONG, bucket);
+            if (key == gameId || key == EMPTY_KEY) return bucket;
+            bucket = (bucket + 1) & indexMask;
+        }
+    }
+
+    /**
+     * Вычисляет исходную корзину идентификатора.
+     *
+     * @param gameId идентификатор игры
+     * @return номер корзины
+     */
+    private int home(long gameId) {
+        long z = gameId * 0x9E3779B97F4A7C15L;
+        return (int) (z ^ (z >>> 32)) & indexMask;
+    }
+
+    /**
+     * Выдаёт свободный слот: из списка свободных или ещё не использованный.
+     *
+     * @return номер слота
+     */
+    private int allocateSlot() {
+        if (freeHead >= 0) {
+            int slot = freeHead;
+            freeHead = slots.get(ValueLayout.JAVA_INT, slotSize * slot);
+            return slot;
+        }
+        if (highWater == maxGames) throw new IllegalStateException(Constants.SESSION_STORE_FULL_LABEL + maxGames);
+        return highWater++;
+    }
+
+    /**
+     * Записывает сессию в слот.
+     *
+     * @param base    смещение слота
+     * @param session сессия
+     */
+    private void write(long base, GameSession session) {
+        GameRecord record = session.getRecord();
+        int sizeX = record.getSizeX();
+        int sizeY = record.getSizeY();
+        slots.set(ValueLayout.JAVA_LONG, base + GAME_ID, session.getGameId());
+        slots.set(ValueLayout.JAVA_LONG, base + SEED, record.getSeed());
+        slots.set(ValueLayout.JAVA_BYTE, base + SIZE_X, (byte) sizeX);
+        slots.set(ValueLayout.JAVA_BYTE, base + SIZE_Y, (byte) sizeY);
+        slots.set(ValueLayout.JAVA_BYTE, base + WIN_LEN, (byte) record.getWinLen());
+        slots.set(ValueLayout.JAVA_BYTE, base + MODE, (byte) record.getMode().ordinal());
+        slots.set(ValueLayout.JAVA_BYTE, base + STATE, (byte) session.getState().ordinal());
+        slots.set(ValueLayout.JAVA_SHORT, base + MOVE_COUNT, (short) record.size());
+        for (int ply = 0; ply < record.size(); ply++) {
+            Move move = record.getMove(ply);
+            slots.set(ValueLayout.JAVA_SHORT, base + MOVES + (long) ply * Short.BYTES,
+                    (short) (move.y() * sizeX + move.x() | (record.isFallback(ply) ? SessionSnapshot.FALLBACK_BIT : 0)));
+        }
+    }
+
+    /**
+     * Читает сессию из слота и восстанавливает поле по ходам.
+     *
+     * @param base смещение слота
+     * @return сессия в куче
+     */
+    private GameSession read(long base) {
+        int sizeX = unsignedByte(base + SIZE_X);
+        int sizeY = unsignedByte(base + SIZE_Y);
+        GameRecord record = new GameRecord(Enums.GameMode.values()[unsignedByte(base + MODE)],
+                sizeX, sizeY, unsignedByte(base + WIN_LEN), slots.get(ValueLayout.JAVA_LONG, base + SEED));
+        int[][] field = new int[sizeY][sizeX];
+        int dot = Enums.Dot.HUMAN.getValue();
+        int moves = Short.toUnsignedInt(slots.get(ValueLayout.JAVA_SHORT, base + MOVE_COUNT));
+        for (int ply = 0; ply < moves; ply++) {
+            int packed = Short.toUnsignedInt(slots.get(ValueLayout.JAVA_SHORT, base + MOVES + (long) ply * Short.BYTES));
+            int cell = packed & ~SessionSnapshot.FALLBACK_BIT;
+            int x = cell % sizeX;
+            int y = cell / sizeX;
+            record.add(x, y, (packed & SessionSnapshot.FALLBACK_BIT) != 0);
+            field[y][x] = dot;
+            dot = GameRules.opponent(dot);
+        }
+        return new GameSession(slots.get(ValueLayout.JAVA_LONG, base + GAME_ID), record, field,
+                Enums.GameState.values()[unsignedByte(base + STATE)]);
+    }
+
+    /**
+     * Читает беззнаковый байт из слотов.
+     *
+     * @param offset смещение
+     * @return значение от 0 до 255
+     */
+    private int unsignedByte(long offset) {
+        return Byte.toUnsignedInt(slots.get(ValueLayout.JAVA_BYTE, offset));
+    }
+
+    /**
+     * Выравнивает смещение вверх.
+     *
+     * @param offset    смещение
+     * @param alignment выравнивание (степень двойки)
+     * @return выровненное смещение
+     */
+    private static long align(long offset, long alignment) {
+        return (offset + alignment - 1) & -alignment;
+    }
+}
@@ -0,0 +1,110 @@
+package ru.gb.jdk.one.online.tournament;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Итог матча кандидата против базовой стратегии.
+ * <p>
+ * Оценка Эло, её интервал и SPRT считаются по парам партий (пентаномиальная модель, см. {@link Sprt});
+ * число побед, ничьих и поражений по партиям приводится для наглядности.
+ * Массив пар копируется при создании и при чтении, поэтому итог неизменяем и сравнивается по содержимому.
+ * </p>
+ *
+ * @param wins     победы кандидата
+ * @param draws    ничьи
+ * @param losses   поражения кандидата
+ * @param pairs    число пар по числу полуочков кандидата в паре (от 0 до 4)
+ * @param elo      оценка разницы в Эло (кандидат минус базовая)
+ * @param eloLow   нижняя граница 95%-го доверительного интервала
+ * @param eloHigh  верхняя граница 95%-го доверительного интервала
+ * @param llr      логарифм отношения правдоподобия SPRT
+ * @param verdict  решение SPRT
+ */
+public record MatchResult(long wins, long draws, long losses, long[] pairs, double elo, double eloLow,
+                          double eloHigh, double llr, Sprt.Verdict verdict) {
+
+    /** Квантиль нормального распределения для 95%-го интервала */
+    private static final double Z_95 = 1.959964;
+
+    /**
+     * Копирует массив пар, чтобы итог не зависел от массива вызывающего кода.
+     */
+    public MatchResult {
+        pairs = pairs.clone();
+    }
+
+    /**
+     * Вычисляет итог по результатам партий и пар.
+     *
+     * @param wins   победы кандидата
+     * @param draws  ничьи
+     * @param losses поражения кандидата
+     * @param pairs  число пар по числу полуочков кандидата в паре (копируется)
+     * @param sprt   критерий
+     * @return итог матча
+     */
+    public static MatchResult of(long wins, long draws, long losses, long[] pairs, Sprt sprt) {
+        long count = Sprt.count(pairs);
+        if (count == 0) return new MatchResult(wins, draws, losses, pairs, 0, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, 0, Sprt.Verdict.CONTINUE);
+        double llr = sprt.llr(pairs);
+        double score = Sprt.score(pairs);
+        double margin = Z_95 * Math.sqrt(Sprt.variance(pairs, score) / count);
+        return new MatchResult(wins, draws, losses, pairs, toElo(score), toElo(score - margin),
+                toElo(score + margin), llr, sprt.verdict(llr));
+    }
+
+    /**
+     * Возвращает число пар по числу полуочков кандидата в паре.
+     *
+     * @return копия массива пар
+     */
+    @Override
+    public long[] pairs() {
+        return pairs.clone();
+    }
+
+    /**
+     * Возвращает число сыгранных партий.
+     *
+     * @return число партий
+     */
+    public long games() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * Переводит долю очков в Эло, ограничивая крайние значения бесконечностями.
+     *
+     * @param score доля очков
+     * @return разница в Эло
+     */
+    private static double toElo(double score) {
+        if (score <= 0) return Double.NEGATIVE_INFINITY;
+        if (score >= 1) return Double.POSITIVE_INFINITY;
+        return Sprt.elo(score);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MatchResult other)) return false;
+        return wins == other.wins && draws == other.draws && losses == other.losses
+                && Arrays.equals(pairs, other.pairs) && Double.compare(elo, other.elo) == 0
+                && Double.compare(eloLow, other.eloLow) == 0 && Double.compare(eloHigh, other.eloHigh) == 0
+                && Double.compare(llr, other.llr) == 0 && verdict == other.verdict;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(wins, draws, losses, elo, eloLow, eloHigh, llr, verdict);
+        return 31 * result + Arrays.hashCode(pairs);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("games %d: +%d =%d -%d, pairs %s, Elo %+.1f [%+.1f, %+.1f], LLR %.2f, %s",
+                games(), wins, draws, losses, Arrays.toString(pairs), elo, eloLow, eloHigh, llr, verdict);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.gb.jdk.one.online.tournament;
+
+/**
+ * Последовательный критерий отношения правдоподобия (SPRT) для сравнения силы стратегий.
+ * <p>
+ * Проверяется гипотеза H0 «разница в силе равна {@code elo0}» против H1 «равна {@code elo1}».
+ * После каждой пары партий вычисляется логарифм отношения правдоподобия (LLR) в нормальном
+ * приближении по пентаномиальной модели: наблюдение — не отдельная партия, а пара партий
+ * из одного дебюта со сменой цвета, с пятью исходами по очкам кандидата в паре (0, ½, 1, 1½, 2).
+ * Партии пары зависимы (общий дебют), поэтому считать их независимыми исходами
+ * победа/ничья/поражение значило бы неверно оценить дисперсию. Матч останавливается, как
+ * только LLR выходит за границы, заданные ошибками первого ({@code alpha}) и второго
+ * ({@code beta}) рода.
+ * </p>
+ */
+public class Sprt {
+
+    /** Решение критерия */
+    public enum Verdict {
+        /** Данных пока недостаточно */
+        CONTINUE,
+        /** Принята H0: кандидат не сильнее на {@code elo1} */
+        H0,
+        /** Принята H1: кандидат сильнее на {@code elo1} */
+        H1
+    }
+
+    /** Число исходов пары партий */
+    public static final int PAIR_OUTCOMES = 5;
+
+    /** Разница в Эло по гипотезе H0 */
+    private final double elo0;
+
+    /** Разница в Эло по гипотезе H1 */
+    private final double elo1;
+
+    /** Нижняя граница LLR (принятие H0) */
+    private final double lower;
+
+    /** Верхняя граница LLR (принятие H1) */
+    private final double upper;
+
+    /**
+     * Конструктор.
+     *
+     * @param elo0  разница в Эло по гипотезе H0
+     * @param elo1  разница в Эло по гипотезе H1
+     * @param alpha вероятность ошибочно принять H1
+     * @param beta  вероятность ошибочно принять H0
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lower = Math.log(beta / (1 - alpha));
+        this.upper = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Вычисляет логарифм отношения правдоподобия по результатам пар.
+     *
+     * @param pairs число пар по очкам кандидата в паре: индекс — число полуочков от 0 до 4
+     * @return LLR ({@code 0}, пока дисперсия результата нулевая)
+     */
+    public double llr(long[] pairs) {
+        long count = count(pairs);
+        if (count == 0) return 0;
+        double score = score(pairs);
+        double variance = variance(pairs, score);
+        if (variance == 0) return 0;
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return count * (s1 - s0) * (2 * score - s0 - s1) / (2 * variance);
+    }
+
+    /**
+     * Считает пары.
+     *
+     * @param pairs число пар по числу полуочков кандидата
+     * @return число пар
+     */
+    public static long count(long[] pairs) {
+        long count = 0;
+        for (long n : pairs) {
+            count += n;
+        }
+        return count;
+    }
+
+    /**
+     * Вычисляет долю очков кандидата.
+     *
+     * @param pairs число пар по числу полуочков кандидата (хотя бы одна пара)
+     * @return доля очков от 0 до 1
+     */
+    public static double score(long[] pairs) {
+        double sum = 0;
+        for (int k = 0; k < PAIR_OUTCOMES; k++) {
+            sum += pairs[k] * pairScore(k);
+        }
+        return sum / count(pairs);
+    }
+
+    /**
+     * Вычисляет дисперсию доли очков одной пары.
+     *
+     * @param pairs число пар по числу полуочков кандидата (хотя бы одна пара)
+     * @param score доля очков кандидата ({@link #score})
+     * @return дисперсия
+     */
+    public static double variance(long[] pairs, double score) {
+        double sum = 0;
+        for (int k = 0; k < PAIR_OUTCOMES; k++) {
+            sum += pairs[k] * sq(pairScore(k) - score);
+        }
+        return sum / count(pairs);
+    }
+
+    /**
+     * Переводит число полуочков кандидата в паре в долю очков пары.
+     *
+     * @param halfPoints число полуочков от 0 до 4
+     * @return доля очков от 0 до 1
+     */
+    private static double pairScore(int halfPoints) {
+        return halfPoints / (double) (PAIR_OUTCOMES - 1);
+    }
+
+    /**
+     * Принимает решение по значению LLR.
+     *
+     * @param llr логарифм отношения правдоподобия
+     * @return решение
+     */
+    public Verdict verdict(double llr) {
+        if (llr >= upper) return Verdict.H1;
+        if (llr <= lower) return Verdict.H0;
+        return Verdict.CONTINUE;
+    }
+
+    /**
+     * Возвращает нижнюю границу LLR.
+     *
+     * @return граница принятия H0
+     */
+    public double getLower() {
+        return lower;
+    }
+
+    /**
+     * Возвращает верхнюю границу LLR.
+     *
+     * @return граница принятия H1
+     */
+    public double getUpper() {
+        return upper;
+    }
+
+    /**
+     * Переводит разницу в Эло в ожидаемую долю очков.
+     *
+     * @param elo разница в Эло
+     * @return ожидаемая доля очков от 0 до 1
+     */
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Переводит долю очков в разницу в Эло.
+     *
+     * @param score доля очков строго между 0 и 1
+     * @return разница в Эло
+     */
+    public static double elo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Возводит число в квадрат.
+     *
+     * @param value число
+     * @return квадрат
+     */
+    private static double sq(double value) {
+        return value * value;
+    }
+}
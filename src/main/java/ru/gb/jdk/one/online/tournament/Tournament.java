@@ -0,0 +1,289 @@
+package ru.gb.jdk.one.online.tournament;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import ru.gb.jdk.one.online.ai.*;
+import ru.gb.jdk.one.online.common.*;
+
+/**
+ * Матч двух стратегий для статистического сравнения их силы.
+ * <p>
+ * Партии играются парами: для каждой пары случайно выбирается поле из списка и короткий
+ * случайный дебют, после чего из этой позиции играются две партии со сменой цвета, чтобы
+ * преимущество первого хода и удачного дебюта не влияло на итог. Пары распределяются по
+ * потокам; после каждой пары пересчитывается SPRT по пентаномиальной модели (пара — одно
+ * наблюдение с пятью исходами, см. {@link Sprt}), и матч останавливается, как только
+ * решение принято или сыграно наибольшее число пар. Каждый ход ограничен одинаковым сроком.
+ * Стратегии создаются заново для каждой партии из фабрик по зерну.
+ * </p>
+ */
+public class Tournament {
+
+    /**
+     * Конфигурация поля.
+     *
+     * @param sizeX  ширина поля
+     * @param sizeY  высота поля
+     * @param winLen длина победной последовательности
+     */
+    public record Board(int sizeX, int sizeY, int winLen) {
+    }
+
+    /** Число попыток построить дебют, после которых пара играется с пустого поля */
+    private static final int OPENING_ATTEMPTS = 16;
+
+    /** Фабрика стратегии-кандидата по зерну */
+    private final LongFunction<MoveStrategy> candidate;
+
+    /** Фабрика базовой стратегии по зерну */
+    private final LongFunction<MoveStrategy> baseline;
+
+    /** Поля, на которых играются пары */
+    private final List<Board> boards;
+
+    /** Критерий остановки */
+    private final Sprt sprt;
+
+    /** Число случайных ходов дебюта */
+    private final int openingPlies;
+
+    /** Срок на ход, мс */
+    private final long moveMillis;
+
+    /** Победы кандидата */
+    private long wins;
+
+    /** Ничьи */
+    private long draws;
+
+    /** Поражения кандидата */
+    private long losses;
+
+    /** Число пар по числу полуочков кандидата в паре */
+    private final long[] pairs = new long[Sprt.PAIR_OUTCOMES];
+
+    /** Решение SPRT принято: результаты следующих пар не учитываются */
+    private boolean decided;
+
+    /**
+     * Конструктор.
+     *
+     * @param candidate    фабрика стратегии-кандидата по зерну
+     * @param baseline     фабрика базовой стратегии по зерну
+     * @param boards       поля, на которых играются пары
+     * @param sprt         критерий остановки
+     * @param openingPlies число случайных ходов дебюта
+     * @param moveMillis   срок на ход, мс
+     */
+    public Tournament(LongFunction<MoveStrategy> candidate, LongFunction<MoveStrategy> baseline, List<Board> boards,
+                      Sprt sprt, int openingPlies, long moveMillis) {
+        this.candidate = candidate;
+        this.baseline = baseline;
+        this.boards = List.copyOf(boards);
+        this.sprt = sprt;
+        this.openingPlies = openingPlies;
+        this.moveMillis = moveMillis;
+    }
+
+    /**
+     * Играет матч.
+     *
+     * @param seed     зерно матча (определяет поля, дебюты и зёрна стратегий)
+     * @param maxPairs наибольшее число пар партий
+     * @param threads  число потоков
+     * @return итог матча
+     * @throws InterruptedException если ожидание потоков прервано
+     */
+    public MatchResult run(long seed, long maxPairs, int threads) throws InterruptedException {
+        AtomicLong nextPair = new AtomicLong();
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] workers = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = executor.submit(() -> {
+                    long pair;
+                    while (!stop.get() && (pair = nextPair.getAndIncrement()) < maxPairs) {
+                        if (record(playPair(seed, pair)).verdict() != Sprt.Verdict.CONTINUE) stop.set(true);
+                    }
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(Constants.AI_ERROR_LABEL, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return result();
+    }
+
+    /**
+     * Возвращает текущий итог матча.
+     *
+     * @return итог матча
+     */
+    public synchronized MatchResult result() {
+        return MatchResult.of(wins, draws, losses, pairs, sprt);
+    }
+
+    /**
+     * Учитывает результаты пары и пересчитывает SPRT.
+     * <p>
+     * Пары, доигранные другими потоками после принятия решения, не учитываются:
+     * критерий останавливается на первом пересечении границы.
+     * </p>
+     *
+     * @param pair очки кандидата в паре: победы, ничьи, поражения
+     * @return итог матча после пары
+     */
+    private synchronized MatchResult record(int[] pair) {
+        if (!decided) {
+            wins += pair[0];
+            draws += pair[1];
+            losses += pair[2];
+            pairs[2 * pair[0] + pair[1]]++;
+        }
+        MatchResult result = result();
+        decided = result.verdict() != Sprt.Verdict.CONTINUE;
+        return result;
+    }
+
+    /**
+     * Играет пару партий из одного дебюта со сменой цвета.
+     *
+     * @param seed зерно матча
+     * @param pair номер пары
+     * @return очки кандидата: победы, ничьи, поражения
+     */
+    private int[] playPair(long seed, long pair) {
+        int[] score = new int[3];
+        SplittableRandom random = new SplittableRandom(seed ^ pair * 0x9E3779B97F4A7C15L);
+        Board board = boards.get(random.nextInt(boards.size()));
+        int[][] opening = opening(board, random);
+        long candidateSeed = random.nextLong();
+        long baselineSeed = random.nextLong();
+        for (int candidateDot : new int[]{Enums.Dot.HUMAN.getValue(), Enums.Dot.AI.getValue()}) {
+            MoveStrategy first = candidate.apply(candidateSeed);
+            MoveStrategy second = baseline.apply(baselineSeed);
+            if (candidateDot != Enums.Dot.HUMAN.getValue()) {
+                MoveStrategy swap = first;
+                first = second;
+                second = swap;
+            }
+            Enums.GameState state = play(board, GameRules.copyOf(opening), first, second);
+            if (state == Enums.GameState.DRAW) {
+                score[1]++;
+            } else if ((state == Enums.GameState.WIN_HUMAN) == (candidateDot == Enums.Dot.HUMAN.getValue())) {
+                score[0]++;
+            } else {
+                score[2]++;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Строит случайный дебют: чётное число ходов, ни один из которых не выигрывает.
+     * <p>
+     * Каждый ход выбирается среди пустых клеток, не дающих победы. Если таких клеток не осталось,
+     * дебют начинается заново с пустого поля; после {@value #OPENING_ATTEMPTS} неудачных попыток
+     * возвращается пустое поле (дебют без ходов).
+     * </p>
+     *
+     * @param board  конфигурация поля
+     * @param random генератор случайных чисел пары
+     * @return поле после дебюта (первый игрок снова на ходу)
+     */
+    private int[][] opening(Board board, SplittableRandom random) {
+        int[][] field = new int[board.sizeY()][board.sizeX()];
+        int plies = Math.min(openingPlies & ~1, (board.sizeX() * board.sizeY() - 1) & ~1);
+        int[] cells = new int[board.sizeX() * board.sizeY()];
+        for (int attempt = 0; attempt < OPENING_ATTEMPTS; attempt++) {
+            int dot = Enums.Dot.HUMAN.getValue();
+            int ply = 0;
+            while (ply < plies) {
+                int count = 0;
+                for (int y = 0; y < board.sizeY(); y++) {
+                    for (int x = 0; x < board.sizeX(); x++) {
+                        if (field[y][x] != Enums.Dot.EMPTY.getValue()) continue;
+                        field[y][x] = dot;
+                        if (!GameRules.isWinningMove(field, board.winLen(), x, y, dot)) {
+                            cells[count++] = y * board.sizeX() + x;
+                        }
+                        field[y][x] = Enums.Dot.EMPTY.getValue();
+                    }
+                }
+                if (count == 0) break;
+                int cell = cells[random.nextInt(count)];
+                field[cell / board.sizeX()][cell % board.sizeX()] = dot;
+                dot = GameRules.opponent(dot);
+                ply++;
+            }
+            if (ply == plies) return field;
+            field = new int[board.sizeY()][board.sizeX()];
+        }
+        return field;
+    }
+
+    /**
+     * Доигрывает партию из позиции, в которой ходит первый игрок.
+     *
+     * @param board  конфигурация поля
+     * @param field  поле после дебюта
+     * @param first  стратегия первого игрока
+     * @param second стратегия второго игрока
+     * @return итог партии
+     */
+    private Enums.GameState play(Board board, int[][] field, MoveStrategy first, MoveStrategy second) {
+        if (GameRules.isFull(field)) return Enums.GameState.DRAW;
+        int dot = Enums.Dot.HUMAN.getValue();
+        while (true) {
+            MoveStrategy strategy = dot == Enums.Dot.HUMAN.getValue() ? first : second;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(moveMillis);
+            Move move;
+            try {
+                move = strategy.chooseMove(GameRules.copyOf(field), board.winLen(), dot, deadline);
+            } catch (EndgameSolver.DeadlineExceededException e) {
+                move = strategy.chooseFallbackMove(GameRules.copyOf(field), board.winLen(), dot);
+            }
+            field[move.y()][move.x()] = dot;
+            if (GameRules.isWinningMove(field, board.winLen(), move.x(), move.y(), dot)) {
+                return dot == Enums.Dot.HUMAN.getValue() ? Enums.GameState.WIN_HUMAN : Enums.GameState.WIN_AI;
+            }
+            if (GameRules.isFull(field)) return Enums.GameState.DRAW;
+            dot = GameRules.opponent(dot);
+        }
+    }
+
+    /**
+     * Сравнивает стандартную стратегию компьютера с простой «выиграть или заблокировать».
+     * <p>
+     * Запуск: {@code java -cp target/classes ru.gb.jdk.one.online.tournament.Tournament [maxPairs] [threads]}.
+     * </p>
+     *
+     * @param args наибольшее число пар и число потоков
+     * @throws InterruptedException если ожидание потоков прервано
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long maxPairs = args.length > 0 ? Long.parseLong(args[0]) : 20_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Tournament tournament = new Tournament(Strategies::standard,
+                seed -> new WinBlockStrategy(new SplittableRandom(seed)),
+                List.of(new Board(4, 4, 3), new Board(5, 5, 4), new Board(6, 6, 4)),
+                new Sprt(0, 10, 0.05, 0.05), 2, 100);
+        long start = System.nanoTime();
+        MatchResult result = tournament.run(1, maxPairs, threads);
+        System.out.printf("%s in %,.1f s%n", result, (System.nanoTime() - start) / 1e9);
+    }
+}